@@ -0,0 +1,442 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * A train that keeps its wagons in parallel primitive arrays instead of a linked sequence of Wagon objects.
+ * It offers the same operations as {@link Train}, with constant time access by position and an in-place reverse.
+ * Wagons that are attached to a compact train are recorded by their id and capacity;
+ * the Wagon objects themselves are not linked into the train.
+ */
+public class CompactTrain {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final String origin;
+    private final String destination;
+    private final Locomotive engine;
+    private boolean freight;            // whether the wagons are freight wagons (or passenger wagons)
+    private int[] wagonIds;             // the id of the wagon at every position
+    private int[] capacities;           // the number of seats or the maximum weight of the wagon at every position
+    private int numberOfWagons;
+    private int totalCapacity;          // the sum of all capacities
+    private final IntIntHashMap wagonIndexes;   // the index of every wagon in the arrays by its id
+    // representation-invariant
+    //      the wagon at position p (starting at 1) is described by wagonIds[p-1] and capacities[p-1]
+    //      for all 0 < p <= numberOfWagons, and wagonIndexes maps exactly those ids to p-1
+
+    public CompactTrain(Locomotive engine, String origin, String destination) {
+        this(engine, origin, destination, false, new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], 0);
+    }
+
+    private CompactTrain(Locomotive engine, String origin, String destination,
+                         boolean freight, int[] wagonIds, int[] capacities, int numberOfWagons) {
+        this.engine = engine;
+        this.origin = origin;
+        this.destination = destination;
+        this.freight = freight;
+        this.wagonIds = wagonIds;
+        this.capacities = capacities;
+        this.numberOfWagons = numberOfWagons;
+        this.wagonIndexes = new IntIntHashMap(numberOfWagons);
+
+        for (int index = 0; index < numberOfWagons; index++) {
+            wagonIndexes.put(wagonIds[index], index);
+            totalCapacity += capacities[index];
+        }
+    }
+
+    /**
+     * Creates a compact train that takes over the given arrays of wagon ids and capacities
+     *
+     * @param freight    whether the wagons are freight wagons (or passenger wagons)
+     * @param wagonIds   the (unique) id of the wagon at every position
+     * @param capacities the number of seats or the maximum weight of the wagon at every position
+     * @return the compact train
+     */
+    static CompactTrain of(Locomotive engine, String origin, String destination,
+                           boolean freight, int[] wagonIds, int[] capacities) {
+        return new CompactTrain(engine, origin, destination, freight, wagonIds, capacities, wagonIds.length);
+    }
+
+    /**
+     * Creates a compact train with the same locomotive, route and wagons as the given train
+     *
+     * @param train the train to be converted
+     * @return a compact copy of the train
+     */
+    public static CompactTrain fromTrain(Train train) {
+        CompactTrain compactTrain = new CompactTrain(train.getEngine(), train.getOrigin(), train.getDestination());
+
+        if (train.hasWagons()) {
+            compactTrain.insert(0, train.getFirstWagon(), train.getNumberOfWagons());
+        }
+
+        return compactTrain;
+    }
+
+    /**
+     * Creates a train with a linked sequence of new Wagon objects with the same ids and capacities as this train
+     *
+     * @return a linked copy of this train
+     */
+    public Train toTrain() {
+        Train train = new Train(engine, origin, destination);
+        train.setFirstWagon(Wagon.sequenceOf(freight, wagonIds, capacities, numberOfWagons));
+        return train;
+    }
+
+    public boolean hasWagons() {
+        return numberOfWagons > 0;
+    }
+
+    public boolean isPassengerTrain() {
+        return hasWagons() && !freight;
+    }
+
+    public boolean isFreightTrain() {
+        return hasWagons() && freight;
+    }
+
+    public Locomotive getEngine() {
+        return engine;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return the number of Wagons connected to the train
+     */
+    public int getNumberOfWagons() {
+        return numberOfWagons;
+    }
+
+    /**
+     * @return the total number of seats on a passenger train
+     * (return 0 for a freight train)
+     */
+    public int getTotalNumberOfSeats() {
+        return isPassengerTrain() ? totalCapacity : 0;
+    }
+
+    /**
+     * @return the total maximum weight of a freight train
+     * (return 0 for a passenger train)
+     */
+    public int getTotalMaxWeight() {
+        return isFreightTrain() ? totalCapacity : 0;
+    }
+
+    /**
+     * @param position the position of a wagon (starting at 1 for the first wagon of the train)
+     * @return the id of the wagon at that position
+     * @throws IndexOutOfBoundsException if the position is not valid for this train
+     */
+    public int getWagonId(int position) {
+        return wagonIds[checkPosition(position)];
+    }
+
+    /**
+     * @param position the position of a wagon (starting at 1 for the first wagon of the train)
+     * @return the number of seats or the maximum weight of the wagon at that position
+     * @throws IndexOutOfBoundsException if the position is not valid for this train
+     */
+    public int getCapacity(int position) {
+        return capacities[checkPosition(position)];
+    }
+
+    /**
+     * Finds the wagon at the given position (starting at 1 for the first wagon of the train)
+     *
+     * @param position the position you want to find the wagon in
+     * @return a new, unattached Wagon with the id and capacity of the wagon found at the given position
+     * (return null if the position is not valid for this train)
+     */
+    public Wagon findWagonAtPosition(int position) {
+        if (position <= 0 || position > numberOfWagons) return null;
+        return Wagon.newWagon(freight, wagonIds[position - 1], capacities[position - 1]);
+    }
+
+    /**
+     * @param wagonId the id of a wagon
+     * @return whether the wagon is part of this train
+     */
+    public boolean containsWagon(int wagonId) {
+        return wagonIndexes.containsKey(wagonId);
+    }
+
+    /**
+     * Finds the position of the wagon with the given id
+     *
+     * @param wagonId the id of the wagon you want to find
+     * @return the position of that wagon (starting at 1 for the first wagon of the train)
+     * (return -1 if no wagon was found with the given wagonId)
+     */
+    public int findPositionById(int wagonId) {
+        int index = wagonIndexes.get(wagonId);
+        return index == IntIntHashMap.NO_VALUE ? -1 : index + 1;
+    }
+
+    /**
+     * Determines if the given sequence of wagons can be attached to the train
+     * Verfies of the type of wagons match the type of train (Passenger or Freight)
+     * Verfies that the capacity of the engine is sufficient to pull the additional wagons
+     * Verfies that none of the wagons is already part of the train
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return whether attaching is possible
+     */
+    public boolean canAttach(Wagon wagon) {
+        if (wagon == null || !isCompatible(wagon instanceof FreightWagon)) return false;
+
+        int freeCapacity = engine.getMaxWagons() - numberOfWagons;
+
+        for (Wagon current = wagon; current != null; current = Train.nextInOrder(current)) {
+            if (--freeCapacity < 0 || containsWagon(current.getId()) || current.getClass() != wagon.getClass()) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Tries to attach the given sequence of wagons to the rear of the train
+     * No change is made if the attachment cannot be made.
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return whether the attachment could be completed successfully
+     */
+    public boolean attachToRear(Wagon wagon) {
+        return insertAtIndex(numberOfWagons, wagon);
+    }
+
+    /**
+     * Tries to insert the given sequence of wagons at the front of the train
+     * No change is made if the insertion cannot be made.
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return whether the insertion could be completed successfully
+     */
+    public boolean insertAtFront(Wagon wagon) {
+        return insertAtIndex(0, wagon);
+    }
+
+    /**
+     * Tries to insert the given sequence of wagons at/before the given wagon position in the train
+     * No change is made if the insertion cannot be made.
+     * (when the sequence is not compatible or the engine has insufficient capacity
+     * or the given position is not valid in this train)
+     *
+     * @param position the position at which the sequence shall be inserted
+     * @param wagon    the first wagon of a sequence of wagons to be attached
+     * @return whether the insertion could be completed successfully
+     */
+    public boolean insertAtPosition(int position, Wagon wagon) {
+        if (position != 1 && (position <= 0 || position > numberOfWagons)) return false;
+        return insertAtIndex(position - 1, wagon);
+    }
+
+    /**
+     * Tries to remove one Wagon with the given wagonId from this train
+     * and attach it at the rear of the given toTrain
+     * No change is made if the removal or attachment cannot be made
+     * (when the wagon cannot be found, or the trains are not compatible
+     * or the engine of toTrain has insufficient capacity)
+     *
+     * @param wagonId the id of the wagon you want to move
+     * @param toTrain the train you want to attach the wagon to
+     * @return whether the move could be completed successfully
+     */
+    public boolean moveOneWagon(int wagonId, CompactTrain toTrain) {
+        int position = findPositionById(wagonId);
+
+        if (position > 0 && toTrain.canAttach(freight, wagonIds, position - 1, 1)) {
+            toTrain.insert(toTrain.numberOfWagons, freight, wagonIds, capacities, position - 1, 1);
+            remove(position - 1, 1);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Tries to split this train before the given position and move the complete sequence
+     * of wagons from the given position to the rear of toTrain.
+     * No change is made if the split or re-attachment cannot be made
+     * (when the position is not valid for this train, or the trains are not compatible
+     * or the engine of toTrain has insufficient capacity)
+     *
+     * @param position the position you want to split at
+     * @param toTrain  the train you want to attach all wagons beginning from position to
+     * @return whether the move could be completed successfully
+     */
+    public boolean splitAtPosition(int position, CompactTrain toTrain) {
+        if (position <= 0 || position > numberOfWagons) return false;
+
+        int count = numberOfWagons - position + 1;
+
+        if (toTrain.canAttach(freight, wagonIds, position - 1, count)) {
+            toTrain.insert(toTrain.numberOfWagons, freight, wagonIds, capacities, position - 1, count);
+            remove(position - 1, count);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Reverses the sequence of wagons in this train (if any), in place
+     */
+    public void reverse() {
+        for (int left = 0, right = numberOfWagons - 1; left < right; left++, right--) {
+            int id = wagonIds[left];
+            wagonIds[left] = wagonIds[right];
+            wagonIds[right] = id;
+
+            int capacity = capacities[left];
+            capacities[left] = capacities[right];
+            capacities[right] = capacity;
+        }
+
+        updateIndexes(0, numberOfWagons);
+    }
+
+    private boolean isCompatible(boolean freight) {
+        return numberOfWagons == 0 || this.freight == freight;
+    }
+
+    /**
+     * Determines if a range of wagons of another compact train can be attached to this train
+     */
+    private boolean canAttach(boolean freight, int[] ids, int from, int count) {
+        if (!isCompatible(freight) || numberOfWagons + count > engine.getMaxWagons()) return false;
+
+        for (int index = from; index < from + count; index++) {
+            if (containsWagon(ids[index])) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Inserts the data of a sequence of wagons before the given index, if possible
+     */
+    private boolean insertAtIndex(int index, Wagon wagon) {
+        if (!canAttach(wagon)) return false;
+
+        int count = 0;
+        for (Wagon current = wagon; current != null; current = Train.nextInOrder(current)) count++;
+
+        insert(index, wagon, count);
+        return true;
+    }
+
+    /**
+     * Inserts the data of count wagons of a sequence, in the order of its train, before the given index
+     */
+    private void insert(int index, Wagon wagon, int count) {
+        makeRoom(index, count);
+        freight = wagon instanceof FreightWagon;
+
+        for (Wagon current = wagon; current != null && count > 0; current = Train.nextInOrder(current), count--) {
+            int capacity = freight ? ((FreightWagon) current).getMaxWeight() : ((PassengerWagon) current).getNumberOfSeats();
+            wagonIds[index] = current.getId();
+            capacities[index++] = capacity;
+            wagonIndexes.put(current.getId(), index - 1);
+            totalCapacity += capacity;
+        }
+    }
+
+    /**
+     * Inserts a range of wagons of another compact train before the given index
+     */
+    private void insert(int index, boolean freight, int[] ids, int[] caps, int from, int count) {
+        makeRoom(index, count);
+        this.freight = freight;
+
+        System.arraycopy(ids, from, wagonIds, index, count);
+        System.arraycopy(caps, from, capacities, index, count);
+
+        for (int i = from; i < from + count; i++) {
+            wagonIndexes.put(ids[i], index + i - from);
+            totalCapacity += caps[i];
+        }
+    }
+
+    /**
+     * Removes count wagons starting at the given index
+     */
+    private void remove(int index, int count) {
+        for (int i = index; i < index + count; i++) {
+            wagonIndexes.remove(wagonIds[i]);
+            totalCapacity -= capacities[i];
+        }
+
+        System.arraycopy(wagonIds, index + count, wagonIds, index, numberOfWagons - index - count);
+        System.arraycopy(capacities, index + count, capacities, index, numberOfWagons - index - count);
+        numberOfWagons -= count;
+        updateIndexes(index, numberOfWagons);
+    }
+
+    /**
+     * Shifts the wagons from the given index onwards by count positions, growing the arrays if needed
+     */
+    private void makeRoom(int index, int count) {
+        if (numberOfWagons + count > wagonIds.length) {
+            int length = Math.max(2 * wagonIds.length, numberOfWagons + count);
+            wagonIds = Arrays.copyOf(wagonIds, length);
+            capacities = Arrays.copyOf(capacities, length);
+        }
+
+        System.arraycopy(wagonIds, index, wagonIds, index + count, numberOfWagons - index);
+        System.arraycopy(capacities, index, capacities, index + count, numberOfWagons - index);
+        numberOfWagons += count;
+        updateIndexes(index + count, numberOfWagons);
+    }
+
+    /**
+     * Records the indexes from..to-1 of the wagons that have been shifted or swapped
+     */
+    private void updateIndexes(int from, int to) {
+        for (int index = from; index < to; index++) {
+            wagonIndexes.put(wagonIds[index], index);
+        }
+    }
+
+    private int checkPosition(int position) {
+        if (position <= 0 || position > numberOfWagons) {
+            throw new IndexOutOfBoundsException("Position " + position + " is not valid for a train of " + numberOfWagons + " wagons");
+        }
+        return position - 1;
+    }
+
+    /**
+     * makes a string of all information about the train (locomotive, wagons, number of wagons,
+     * origin, destination, number of seats or maximum weight), in the same format as {@link Train#toString()}
+     * @return a string containing all information about the train
+     */
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder(engine.toString());
+
+        for (int index = 0; index < numberOfWagons; index++) {
+            string.append("[Wagon-").append(wagonIds[index]).append(']');
+        }
+
+        string.append(" with ").append(numberOfWagons).append(" wagons from ").append(origin).append(" to ").append(destination);
+
+        if (isFreightTrain()) {
+            string.append("\nTotal maximum weight: ").append(getTotalMaxWeight());
+        }
+
+        if (isPassengerTrain()) {
+            string.append("\nTotal number of seats: ").append(getTotalNumberOfSeats());
+        }
+
+        return string.toString();
+    }
+}
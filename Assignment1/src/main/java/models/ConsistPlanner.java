@@ -0,0 +1,176 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Plans the composition of trains from a pool of wagons and locomotives,
+ * using as few locomotives as possible.
+ *
+ * A locomotive pulls either passenger wagons or freight wagons, up to its maximum number of wagons.
+ * Because every wagon takes one place, the locomotives with the largest capacities are always the best choice,
+ * and the only question is how to divide them between passenger and freight trains.
+ * That division is found by a subset-sum over the capacities of the largest locomotives.
+ */
+public class ConsistPlanner {
+
+    /**
+     * Assembles trains with a minimal number of locomotives that together pull all given wagons
+     *
+     * @param locomotives the available locomotives
+     * @param wagons      the wagons to be pulled, which shall not be part of any train
+     * @param origin      the origin of the new trains
+     * @param destination the destination of the new trains
+     * @return the new trains, passenger trains first
+     * (return null if the locomotives cannot pull all wagons)
+     * @throws IllegalArgumentException if a wagon is part of a train, or if wagon ids are not unique
+     */
+    public static List<Train> planTrains(Collection<Locomotive> locomotives, Collection<? extends Wagon> wagons,
+                                         String origin, String destination) {
+        List<Wagon> passengerWagons = new ArrayList<>();
+        List<Wagon> freightWagons = new ArrayList<>();
+        IntHashMap<Wagon> wagonsById = new IntHashMap<>(wagons.size());
+
+        for (Wagon wagon : wagons) {
+            if (wagon.getTrain() != null) throw new IllegalArgumentException("Wagon " + wagon + " is already part of a train");
+            if (wagonsById.put(wagon.getId(), wagon) != null) throw new IllegalArgumentException("Wagon " + wagon + " is not unique");
+            (wagon instanceof FreightWagon ? freightWagons : passengerWagons).add(wagon);
+        }
+
+        Locomotive[] sorted = locomotives.toArray(new Locomotive[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(Locomotive::getMaxWagons).reversed());
+
+        boolean[] forPassengers = divideLocomotives(sorted, passengerWagons.size(), freightWagons.size());
+        if (forPassengers == null) return null;
+
+        // assign a consecutive range of wagons to every selected locomotive
+        List<Locomotive> engines = new ArrayList<>();
+        List<List<Wagon>> loads = new ArrayList<>();
+        assignWagons(sorted, forPassengers, true, passengerWagons, engines, loads);
+        assignWagons(sorted, forPassengers, false, freightWagons, engines, loads);
+
+        // unlink the wagons first, because that touches their neighbours
+        for (Wagon wagon : wagons) wagon.removeFromSequence();
+
+        // the trains have no wagons in common, so they can be assembled in parallel
+        Train[] trains = new Train[engines.size()];
+        IntStream.range(0, trains.length).parallel().forEach(i -> {
+            trains[i] = new Train(engines.get(i), origin, destination);
+            for (Wagon wagon : loads.get(i)) trains[i].attachToRear(wagon);
+        });
+
+        return Arrays.asList(trains);
+    }
+
+    /**
+     * Selects the smallest number of the largest locomotives that can be divided into a passenger group
+     * with capacity for at least nPassengerWagons, and a freight group with capacity for at least nFreightWagons
+     *
+     * @param locomotives all locomotives, ordered by decreasing capacity
+     * @return for each of the selected locomotives whether it pulls passenger wagons (or freight wagons)
+     * (return null if no division is possible)
+     */
+    private static boolean[] divideLocomotives(Locomotive[] locomotives, int nPassengerWagons, int nFreightWagons) {
+        int maxCapacity = locomotives.length == 0 ? 0 : locomotives[0].getMaxWagons();
+        // a smallest passenger group never exceeds the required capacity by a full locomotive,
+        // so only the sums up to this bound matter
+        int bound = nPassengerWagons + maxCapacity + 1;
+
+        long[] reachable = new long[bound / 64 + 1];
+        int[] reachedBy = new int[bound];       // the locomotive that made a sum reachable first
+        reachable[0] = 1L;
+        long totalCapacity = 0;
+
+        for (int k = 0; k <= locomotives.length; k++) {
+            // sum 0 is always reachable, so only sums in [nPassengerWagons, totalCapacity - nFreightWagons] qualify
+            int sum = nextReachable(reachable, nPassengerWagons, bound);
+            if (sum >= 0 && sum <= totalCapacity - nFreightWagons) {
+                return passengerGroup(locomotives, reachedBy, sum, k);
+            }
+
+            if (k < locomotives.length) {
+                int capacity = locomotives[k].getMaxWagons();
+                totalCapacity += capacity;
+                addToSubsetSums(reachable, reachedBy, capacity, k, bound);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Extends the set of reachable subset sums with the capacity of one more locomotive
+     * i.e. reachable |= reachable << capacity, recording which sums became reachable by this locomotive
+     */
+    private static void addToSubsetSums(long[] reachable, int[] reachedBy, int capacity, int locomotive, int bound) {
+        if (capacity <= 0 || capacity >= bound) return;
+
+        int wordShift = capacity >>> 6, bitShift = capacity & 63;
+
+        // from high to low words, so that every word is shifted from its value before this locomotive
+        for (int word = reachable.length - 1; word >= wordShift; word--) {
+            int source = word - wordShift;
+            long shifted = reachable[source] << bitShift;
+            if (bitShift != 0 && source > 0) shifted |= reachable[source - 1] >>> (64 - bitShift);
+
+            long added = shifted & ~reachable[word];
+            reachable[word] |= shifted;
+
+            for (; added != 0; added &= added - 1) {
+                int sum = (word << 6) + Long.numberOfTrailingZeros(added);
+                if (sum < bound) reachedBy[sum] = locomotive;
+            }
+        }
+
+        // forget the sums beyond the bound
+        reachable[reachable.length - 1] &= bound % 64 == 0 ? 0L : -1L >>> (64 - bound % 64);
+    }
+
+    /**
+     * @return the smallest reachable sum from the given sum onwards, or -1 if there is none below the bound
+     */
+    private static int nextReachable(long[] reachable, int from, int bound) {
+        for (int word = from >>> 6; word < reachable.length; word++) {
+            long bits = reachable[word] & (word == from >>> 6 ? -1L << (from & 63) : -1L);
+            if (bits != 0) {
+                int sum = (word << 6) + Long.numberOfTrailingZeros(bits);
+                return sum < bound ? sum : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reconstructs the locomotives that add up to the given sum, and leaves all other locomotives among
+     * the first nSelected for freight wagons
+     */
+    private static boolean[] passengerGroup(Locomotive[] locomotives, int[] reachedBy, int sum, int nSelected) {
+        boolean[] forPassengers = new boolean[nSelected];
+
+        while (sum > 0) {
+            int locomotive = reachedBy[sum];
+            forPassengers[locomotive] = true;
+            sum -= locomotives[locomotive].getMaxWagons();
+        }
+
+        return forPassengers;
+    }
+
+    private static void assignWagons(Locomotive[] locomotives, boolean[] forPassengers, boolean passengers,
+                                     List<Wagon> wagons, List<Locomotive> engines, List<List<Wagon>> loads) {
+        int next = 0;
+
+        for (int i = 0; i < forPassengers.length && next < wagons.size(); i++) {
+            if (forPassengers[i] == passengers) {
+                int end = Math.min(wagons.size(), next + locomotives[i].getMaxWagons());
+                engines.add(locomotives[i]);
+                loads.add(wagons.subList(next, end));
+                next = end;
+            }
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package models;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A fleet of trains that can be reconfigured concurrently from many threads.
+ * Every train of the fleet is guarded by its own lock. An operation locks all trains that it involves
+ * in the order of their train ids, so that concurrent operations can never deadlock,
+ * and operations on unrelated trains run in parallel.
+ * Once a train has been registered, it shall only be accessed through the fleet.
+ * Wagons that are not part of any train shall not be shared between threads.
+ * Every change is reported to the {@link FleetListener}s of the fleet.
+ */
+public class Fleet {
+    private final Map<Train, Member> members = new ConcurrentHashMap<>();
+    private final Map<Integer, Member> membersById = new ConcurrentHashMap<>();
+    private final AtomicInteger nextTrainId = new AtomicInteger();
+    private final List<FleetListener> listeners = new CopyOnWriteArrayList<>();
+    // representation-invariant
+    //      the trains have the ids 0 until size(), in the order of registration
+
+    /**
+     * Adds a train to the fleet (if it is not part of the fleet yet)
+     *
+     * @param train the train to be added
+     * @return the id of the train within the fleet
+     */
+    public synchronized int register(Train train) {
+        Member member = members.get(train);
+        if (member != null) return member.id;
+
+        member = new Member(train, nextTrainId.getAndIncrement());
+        member.lock.lock();
+        try {
+            members.put(train, member);
+            membersById.put(member.id, member);
+            fire(TrainEvent.registered(member.id, train));
+        } finally {
+            member.lock.unlock();
+        }
+
+        return member.id;
+    }
+
+    public void addListener(FleetListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(FleetListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @param trainId the id of a train within the fleet
+     * @return the train with that id, or null if the fleet has no such train
+     */
+    public Train getTrain(int trainId) {
+        Member member = membersById.get(trainId);
+        return member == null ? null : member.train;
+    }
+
+    /**
+     * @param train a train
+     * @return the id of the train within the fleet, or -1 if it is not part of the fleet
+     */
+    public int getTrainId(Train train) {
+        Member member = members.get(train);
+        return member == null ? -1 : member.id;
+    }
+
+    public Collection<Train> getTrains() {
+        List<Train> trains = new ArrayList<>();
+        for (Member member : members.values()) trains.add(member.train);
+        return trains;
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * Evaluates a function on a train while no other thread can reconfigure that train
+     *
+     * @param train  a train of the fleet
+     * @param reader the function to evaluate
+     * @param <R>    the type of the result
+     * @return the result of the function
+     */
+    public <R> R read(Train train, Function<Train, R> reader) {
+        List<Member> locked = lock(train);
+        try {
+            return reader.apply(train);
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    /**
+     * Evaluates a function on all trains of the fleet, while no other thread can reconfigure or register any train
+     *
+     * @param reader the function to evaluate, which receives the trains in the order of their ids
+     * @param <R>    the type of the result
+     * @return the result of the function
+     */
+    public synchronized <R> R readAll(Function<List<Train>, R> reader) {
+        List<Train> trains = new ArrayList<>(size());
+        for (int id = 0; id < size(); id++) trains.add(getTrain(id));
+
+        List<Member> locked = lock(trains.toArray(new Train[0]));
+        try {
+            return reader.apply(trains);
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    /**
+     * Writes every train of the fleet in the format of {@link Train#toString()} to a stream of characters,
+     * one train after the other in the order of their ids, each followed by a new line.
+     * Every train is written while no other thread can reconfigure it, which reuses its rendering
+     * for as long as the train does not change.
+     *
+     * @param out the destination of the characters
+     * @throws IOException if the destination fails
+     */
+    public void writeTo(Appendable out) throws IOException {
+        int id = 0;
+        for (Train train = getTrain(id); train != null; train = getTrain(++id)) {
+            List<Member> locked = lock(train);
+            try {
+                train.writeTo(out);
+            } finally {
+                unlock(locked);
+            }
+            out.append('\n');
+        }
+    }
+
+    /**
+     * @return the total number of wagons in all trains of the fleet
+     */
+    public int getNumberOfWagons() {
+        int numberOfWagons = 0;
+
+        for (Member member : members.values()) {
+            numberOfWagons += read(member.train, Train::getNumberOfWagons);
+        }
+
+        return numberOfWagons;
+    }
+
+    /**
+     * Attaches a sequence of wagons to the rear of a train of the fleet, as by {@link Train#attachToRear(Wagon)}
+     * If the sequence is part of another train of the fleet, that train is locked as well.
+     *
+     * @param train the train of the fleet
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return whether the attachment could be completed successfully
+     */
+    public boolean attachToRear(Train train, Wagon wagon) {
+        return withFormerTrain(train, wagon, TrainEvent.Type.ATTACH, 0, () -> train.attachToRear(wagon));
+    }
+
+    /**
+     * Inserts a sequence of wagons into a train of the fleet, as by {@link Train#insertAtPosition(int, Wagon)}
+     * If the sequence is part of another train of the fleet, that train is locked as well.
+     *
+     * @param train    the train of the fleet
+     * @param position the position at which the sequence shall be inserted
+     * @param wagon    the first wagon of a sequence of wagons to be attached
+     * @return whether the insertion could be completed successfully
+     */
+    public boolean insertAtPosition(Train train, int position, Wagon wagon) {
+        return withFormerTrain(train, wagon, TrainEvent.Type.INSERT, position, () -> train.insertAtPosition(position, wagon));
+    }
+
+    /**
+     * Moves one wagon between two trains of the fleet, as by {@link Train#moveOneWagon(int, Train)}
+     *
+     * @param fromTrain the train that holds the wagon
+     * @param wagonId   the id of the wagon you want to move
+     * @param toTrain   the train you want to attach the wagon to
+     * @return whether the move could be completed successfully
+     */
+    public boolean moveOneWagon(Train fromTrain, int wagonId, Train toTrain) {
+        List<Member> locked = lock(fromTrain, toTrain);
+        try {
+            return notifyIf(fromTrain.moveOneWagon(wagonId, toTrain),
+                    () -> TrainEvent.moved(getTrainId(fromTrain), wagonId, getTrainId(toTrain)));
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    /**
+     * Splits a train of the fleet and moves the rear part to another train, as by {@link Train#splitAtPosition(int, Train)}
+     *
+     * @param fromTrain the train to be split
+     * @param position  the position you want to split at
+     * @param toTrain   the train you want to attach all wagons beginning from position to
+     * @return whether the move could be completed successfully
+     */
+    public boolean splitAtPosition(Train fromTrain, int position, Train toTrain) {
+        List<Member> locked = lock(fromTrain, toTrain);
+        try {
+            return notifyIf(fromTrain.splitAtPosition(position, toTrain),
+                    () -> TrainEvent.split(getTrainId(fromTrain), position, getTrainId(toTrain)));
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    /**
+     * Reverses a train of the fleet, as by {@link Train#reverse()}
+     *
+     * @param train the train of the fleet
+     */
+    public void reverse(Train train) {
+        List<Member> locked = lock(train);
+        try {
+            train.reverse();
+            fire(TrainEvent.reversed(getTrainId(train)));
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    /**
+     * Applies a shunting plan to a train of the fleet, as by {@link Train#apply(ShuntingPlan)},
+     * while all trains that are involved in the plan are locked
+     * A successful plan is reported as a state event for every train involved.
+     *
+     * @param train the train of the fleet
+     * @param plan  the operations to apply to the train
+     * @return a report with the status of every operation of the plan
+     */
+    public ShuntingPlan.Report apply(Train train, ShuntingPlan plan) {
+        while (true) {
+            List<Train> trains = new ArrayList<>();
+            List<Train> formerTrains = new ArrayList<>();
+            trains.add(train);
+
+            for (ShuntingPlan.Operation operation : plan.getOperations()) {
+                if (operation.toTrain != null) trains.add(operation.toTrain);
+                if (operation.wagon != null) formerTrains.add(operation.wagon.getTrain());
+            }
+            trains.addAll(formerTrains);
+
+            List<Member> locked = lock(trains.toArray(new Train[0]));
+            try {
+                if (sameFormerTrains(plan, formerTrains)) {
+                    ShuntingPlan.Report report = train.apply(plan);
+                    if (report.isSuccessful()) {
+                        for (Member member : locked) fire(TrainEvent.reconfigured(member.id, member.train));
+                    }
+                    return report;
+                }
+            } finally {
+                unlock(locked);
+            }
+        }
+    }
+
+    private static boolean sameFormerTrains(ShuntingPlan plan, List<Train> formerTrains) {
+        int index = 0;
+
+        for (ShuntingPlan.Operation operation : plan.getOperations()) {
+            if (operation.wagon != null && operation.wagon.getTrain() != formerTrains.get(index++)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Runs an operation that takes a sequence of wagons into the given train,
+     * while both that train and the train that currently holds the sequence (if any) are locked
+     * A train hands a sequence directly to the train that takes it, so its owner never reads as null
+     * during a transfer: a sequence without owner is really detached, and a sequence that has changed owner
+     * before its owner could be locked is tried again.
+     */
+    private boolean withFormerTrain(Train train, Wagon wagon, TrainEvent.Type type, int position, BooleanSupplier operation) {
+        while (true) {
+            // the former train can only be verified once it has been locked
+            Train formerTrain = wagon == null ? null : wagon.getTrain();
+            List<Member> locked = lock(train, formerTrain);
+            try {
+                if (wagon == null || wagon.getTrain() == formerTrain) {
+                    // the sequence has to be described before the operation takes it
+                    TrainEvent event = null;
+                    if (wagon != null && !listeners.isEmpty()) {
+                        if (formerTrain != null) formerTrain.normalize();
+                        event = TrainEvent.attached(type, getTrainId(train), position,
+                                formerTrain == null ? -1 : getTrainId(formerTrain), wagon);
+                    }
+                    return notifyIf(operation.getAsBoolean(), event);
+                }
+            } finally {
+                unlock(locked);
+            }
+        }
+    }
+
+    /**
+     * Notifies the listeners of the event, if the operation has succeeded
+     *
+     * @return whether the operation has succeeded
+     */
+    private boolean notifyIf(boolean succeeded, TrainEvent event) {
+        if (succeeded && event != null) fire(event);
+        return succeeded;
+    }
+
+    private boolean notifyIf(boolean succeeded, Supplier<TrainEvent> event) {
+        if (succeeded && !listeners.isEmpty()) fire(event.get());
+        return succeeded;
+    }
+
+    private void fire(TrainEvent event) {
+        for (FleetListener listener : listeners) listener.handle(event);
+    }
+
+    /**
+     * Locks the given trains (ignoring null and duplicates) in the order of their ids
+     *
+     * @return the members that have been locked
+     * @throws IllegalArgumentException if a train is not part of the fleet
+     */
+    private List<Member> lock(Train... trains) {
+        List<Member> locked = new ArrayList<>(trains.length);
+
+        for (Train train : trains) {
+            if (train == null) continue;
+
+            Member member = members.get(train);
+            if (member == null) throw new IllegalArgumentException("Train " + train.getEngine() + " is not part of this fleet");
+            locked.add(member);
+        }
+
+        // sorting brings duplicates together, so that they can be dropped in a single pass
+        locked.sort(Comparator.comparingInt(member -> member.id));
+        int unique = 0;
+        for (Member member : locked) {
+            if (unique == 0 || locked.get(unique - 1) != member) locked.set(unique++, member);
+        }
+        locked.subList(unique, locked.size()).clear();
+
+        for (Member member : locked) member.lock.lock();
+
+        return locked;
+    }
+
+    private static void unlock(List<Member> locked) {
+        for (int i = locked.size() - 1; i >= 0; i--) locked.get(i).lock.unlock();
+    }
+
+    /**
+     * A train of the fleet with its id and lock
+     */
+    private static class Member {
+        private final Train train;
+        private final int id;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private Member(Train train, int id) {
+            this.train = train;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * An index of the trains of a {@link Fleet} by route and by the number of wagons that their locomotives can still pull,
+ * which answers questions like "which passenger trains from Amsterdam to Paris can take 3 more wagons
+ * and have at least 200 seats" without visiting all trains.
+ * The index follows every change of the fleet as a {@link FleetListener}.
+ * Queries may run concurrently with changes, and then reflect every train as it was before or after its change.
+ */
+public class FleetCapacityIndex implements FleetListener {
+    private static final Comparator<Entry> BY_FREE_WAGONS =
+            Comparator.comparingInt((Entry entry) -> entry.freeWagons).thenComparingInt(entry -> entry.trainId)
+                    .thenComparingInt(entry -> entry.version);
+
+    private final Fleet fleet;
+    private final Map<String, NavigableSet<Entry>> entriesByRoute = new ConcurrentHashMap<>();
+    private final Map<Integer, Entry> entriesById = new ConcurrentHashMap<>();
+    // representation-invariant
+    //      every train of the fleet has exactly one entry in entriesById, which is also in the set of its route and kind
+    //      while a train is updated, its former entry stays in its set until the new entry has been added
+
+    /**
+     * Creates an index of all trains of the fleet, which is kept up to date with all further changes
+     *
+     * @param fleet the fleet to be indexed
+     */
+    public FleetCapacityIndex(Fleet fleet) {
+        this.fleet = fleet;
+        fleet.addListener(this);
+
+        fleet.readAll(trains -> {
+            for (int trainId = 0; trainId < trains.size(); trainId++) update(trainId, trains.get(trainId));
+            return null;
+        });
+    }
+
+    /**
+     * Stops following the changes of the fleet
+     */
+    public void close() {
+        fleet.removeListener(this);
+    }
+
+    @Override
+    public void handle(TrainEvent event) {
+        Train train = event.getType() == TrainEvent.Type.REGISTER ? event.getTrain() : fleet.getTrain(event.getTrainId());
+        update(event.getTrainId(), train);
+
+        if (event.getOtherTrainId() >= 0) {
+            update(event.getOtherTrainId(), fleet.getTrain(event.getOtherTrainId()));
+        }
+    }
+
+    /**
+     * Finds the passenger trains (including trains without wagons) on a route that can take more wagons
+     *
+     * @param origin      the origin of the trains
+     * @param destination the destination of the trains
+     * @param freeWagons  the number of wagons that the locomotive must still be able to pull
+     * @param minSeats    the minimal total number of seats
+     * @return the trains found, ordered by increasing number of free wagons
+     */
+    public List<Train> findPassengerTrains(String origin, String destination, int freeWagons, int minSeats) {
+        return find(origin, destination, Kind.PASSENGER, freeWagons, minSeats);
+    }
+
+    /**
+     * Finds the freight trains (including trains without wagons) on a route that can take more wagons
+     *
+     * @param origin       the origin of the trains
+     * @param destination  the destination of the trains
+     * @param freeWagons   the number of wagons that the locomotive must still be able to pull
+     * @param minMaxWeight the minimal total maximum weight
+     * @return the trains found, ordered by increasing number of free wagons
+     */
+    public List<Train> findFreightTrains(String origin, String destination, int freeWagons, int minMaxWeight) {
+        return find(origin, destination, Kind.FREIGHT, freeWagons, minMaxWeight);
+    }
+
+    /**
+     * Merges the entries of the kind and of the trains without wagons in the order of their free wagons.
+     * A train that is being updated can briefly have an entry in both sets or two entries in one set,
+     * of which only the first one found is reported.
+     */
+    private List<Train> find(String origin, String destination, Kind kind, int freeWagons, int minCapacity) {
+        List<Train> trains = new ArrayList<>();
+        Set<Integer> found = new HashSet<>();
+        Entry from = new Entry(-1, null, null, freeWagons, 0, 0);
+        Iterator<Entry> entries = tailSet(key(origin, destination, kind), from);
+        Iterator<Entry> emptyEntries = minCapacity > 0 ? null : tailSet(key(origin, destination, Kind.EMPTY), from);
+        Entry entry = next(entries), emptyEntry = next(emptyEntries);
+
+        while (entry != null || emptyEntry != null) {
+            Entry first;
+            if (emptyEntry == null || entry != null && BY_FREE_WAGONS.compare(entry, emptyEntry) <= 0) {
+                first = entry;
+                entry = next(entries);
+            } else {
+                first = emptyEntry;
+                emptyEntry = next(emptyEntries);
+            }
+
+            if (first.capacity >= minCapacity && found.add(first.trainId)) trains.add(first.train);
+        }
+
+        return trains;
+    }
+
+    private Iterator<Entry> tailSet(String key, Entry from) {
+        NavigableSet<Entry> entries = entriesByRoute.get(key);
+        return entries == null ? null : entries.tailSet(from, true).iterator();
+    }
+
+    private static Entry next(Iterator<Entry> entries) {
+        return entries != null && entries.hasNext() ? entries.next() : null;
+    }
+
+    /**
+     * Replaces the entry of a train by one for its current composition
+     * The new entry is added before the former entry is removed, so that a concurrent query always finds the train.
+     * (the caller shall hold the lock of the train, or be the only one that can change it)
+     */
+    private void update(int trainId, Train train) {
+        Kind kind = train.isFreightTrain() ? Kind.FREIGHT : train.isPassengerTrain() ? Kind.PASSENGER : Kind.EMPTY;
+        String key = key(train.getOrigin(), train.getDestination(), kind);
+        Entry former = entriesById.get(trainId);
+        Entry entry = new Entry(trainId, train, key, train.getEngine().getMaxWagons() - train.getNumberOfWagons(),
+                train.getTotalNumberOfSeats() + train.getTotalMaxWeight(), former == null ? 0 : former.version + 1);
+
+        entriesByRoute.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(BY_FREE_WAGONS)).add(entry);
+        entriesById.put(trainId, entry);
+        if (former != null) entriesByRoute.get(former.key).remove(former);
+    }
+
+    private static String key(String origin, String destination, Kind kind) {
+        return origin + '\n' + destination + '\n' + kind;
+    }
+
+    private enum Kind { PASSENGER, FREIGHT, EMPTY }
+
+    /**
+     * The indexed capacities of a train
+     */
+    private static class Entry {
+        private final int trainId;
+        private final Train train;
+        private final String key;           // the route and kind of the train
+        private final int freeWagons;       // the number of wagons that the locomotive can still pull
+        private final int capacity;         // the total number of seats or maximum weight
+        private final int version;          // the number of former entries of the train, which tells them apart
+
+        private Entry(int trainId, Train train, String key, int freeWagons, int capacity, int version) {
+            this.trainId = trainId;
+            this.train = train;
+            this.key = key;
+            this.freeWagons = freeWagons;
+            this.capacity = capacity;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package models;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads and writes trains in a compact binary file format.
+ *
+ * The file starts with a header, followed by every train:
+ * <pre>
+ *     header:  int magic ("FLET"), int version, int numberOfTrains
+ *     train:   int locNumber, int maxWagons, string origin, string destination,
+ *              byte kind (0 = no wagons, 1 = passenger, 2 = freight), int numberOfWagons,
+ *              int[numberOfWagons] wagon ids, int[numberOfWagons] seats or maximum weights
+ *     string:  unsigned short length, followed by that many bytes of UTF-8
+ * </pre>
+ * All numbers are big-endian. The ids and capacities of a train are stored as separate blocks,
+ * so that they can be loaded in bulk into the arrays of a {@link CompactTrain}.
+ */
+public class FleetFile {
+    static final int MAGIC = 0x464C4554;
+    static final int VERSION = 1;
+
+    private static final byte NO_WAGONS = 0;
+    private static final byte PASSENGER = 1;
+    private static final byte FREIGHT = 2;
+    // locomotive id and seats, two empty strings, kind and number of wagons
+    private static final int MINIMUM_TRAIN_SIZE = 4 + 4 + 2 + 2 + 1 + 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Writes the trains to a file, wagon by wagon, without building any intermediate copy of a train
+     *
+     * @param path   the file to be (over)written
+     * @param trains the trains to be written, in the order in which they will be read back
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, Collection<Train> trains) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(trains.size());
+
+            for (Train train : trains) {
+                writeTrain(output, train);
+            }
+        }
+    }
+
+    /**
+     * Writes a single train in the format of a fleet file
+     *
+     * @param output the stream to write to
+     * @param train  the train to be written
+     * @throws IOException if the train cannot be written
+     */
+    static void writeTrain(DataOutputStream output, Train train) throws IOException {
+        output.writeInt(train.getEngine().getLocNumber());
+        output.writeInt(train.getEngine().getMaxWagons());
+        writeString(output, train.getOrigin());
+        writeString(output, train.getDestination());
+        output.writeByte(train.isFreightTrain() ? FREIGHT : train.isPassengerTrain() ? PASSENGER : NO_WAGONS);
+        output.writeInt(train.getNumberOfWagons());
+
+        for (Wagon wagon : train) {
+            output.writeInt(wagon.getId());
+        }
+
+        for (Wagon wagon : train) {
+            output.writeInt(wagon instanceof FreightWagon ? ((FreightWagon) wagon).getMaxWeight()
+                    : ((PassengerWagon) wagon).getNumberOfSeats());
+        }
+    }
+
+    /**
+     * Loads the trains of a file, with a linked sequence of new Wagon objects for every train
+     *
+     * @param path the file to be read
+     * @return the trains, in the order of the file
+     * @throws IOException if the file cannot be read or is not a valid fleet file
+     */
+    public static List<Train> readTrains(Path path) throws IOException {
+        return read(path, FleetFile::toTrain);
+    }
+
+    /**
+     * Loads the trains of a file as compact trains, which take the blocks of ids and capacities in bulk
+     *
+     * @param path the file to be read
+     * @return the compact trains, in the order of the file
+     * @throws IOException if the file cannot be read or is not a valid fleet file
+     */
+    public static List<CompactTrain> readCompactTrains(Path path) throws IOException {
+        return read(path, CompactTrain::of);
+    }
+
+    private static <T> List<T> read(Path path, TrainFactory<T> factory) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Fleet file " + path + " is too large to be mapped at once");
+            }
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+                throw new IOException(path + " is not a fleet file");
+            }
+
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Fleet file " + path + " has unsupported version " + version);
+            }
+
+            int numberOfTrains = buffer.getInt();
+            if (numberOfTrains < 0 || numberOfTrains > buffer.remaining() / MINIMUM_TRAIN_SIZE) {
+                throw new IOException("Fleet file " + path + " has an invalid number of trains " + numberOfTrains);
+            }
+            List<T> trains = new ArrayList<>(numberOfTrains);
+
+            for (int i = 0; i < numberOfTrains; i++) {
+                try {
+                    trains.add(readTrain(buffer, factory));
+                } catch (IOException exception) {
+                    throw new IOException("Fleet file " + path + " has a corrupt train at index " + i, exception);
+                }
+            }
+
+            return trains;
+        } catch (BufferUnderflowException | IllegalArgumentException exception) {
+            throw new IOException("Fleet file " + path + " is truncated or corrupt", exception);
+        }
+    }
+
+    /**
+     * Reads a single train in the format of a fleet file
+     *
+     * @param buffer the buffer to read from
+     * @return the train as created by the factory
+     * @throws IOException if the kind of train or its number of wagons does not fit the buffer
+     */
+    static <T> T readTrain(ByteBuffer buffer, TrainFactory<T> factory) throws IOException {
+        Locomotive engine = new Locomotive(buffer.getInt(), buffer.getInt());
+        String origin = readString(buffer);
+        String destination = readString(buffer);
+        byte kind = buffer.get();
+        if (kind != NO_WAGONS && kind != PASSENGER && kind != FREIGHT) {
+            throw new IOException("Unknown kind of train " + kind);
+        }
+
+        int numberOfWagons = buffer.getInt();
+        if (numberOfWagons < 0 || 2L * Integer.BYTES * numberOfWagons > buffer.remaining()
+                || (kind == NO_WAGONS) != (numberOfWagons == 0)) {
+            throw new IOException("Invalid number of wagons " + numberOfWagons + " for a train of kind " + kind);
+        }
+
+        boolean freight = kind == FREIGHT;
+        int[] wagonIds = new int[numberOfWagons];
+        int[] capacities = new int[wagonIds.length];
+        buffer.asIntBuffer().get(wagonIds).get(capacities);
+        buffer.position(buffer.position() + 2 * Integer.BYTES * wagonIds.length);
+
+        return factory.create(engine, origin, destination, freight, wagonIds, capacities);
+    }
+
+    static Train toTrain(Locomotive engine, String origin, String destination,
+                         boolean freight, int[] wagonIds, int[] capacities) {
+        Train train = new Train(engine, origin, destination);
+        train.setFirstWagon(Wagon.sequenceOf(freight, wagonIds, capacities, wagonIds.length));
+        return train;
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IOException("String is too long for a fleet file: " + string);
+
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a train from the data of a fleet file
+     */
+    interface TrainFactory<T> {
+        T create(Locomotive engine, String origin, String destination, boolean freight, int[] wagonIds, int[] capacities);
+    }
+}
@@ -0,0 +1,15 @@
+package models;
+
+/**
+ * Receives the changes of the trains of a {@link Fleet}.
+ * A listener is notified after every successful change, while the fleet still holds the locks
+ * of all trains involved, so the events of a train arrive in the order in which its changes were made.
+ * Listeners are notified from the threads that make the changes, and shall not reconfigure any train.
+ */
+public interface FleetListener {
+
+    /**
+     * @param event the change that has been made
+     */
+    void handle(TrainEvent event);
+}
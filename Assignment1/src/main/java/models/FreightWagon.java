@@ -1,7 +1,7 @@
 package models;
 
 public class FreightWagon extends Wagon {
-    private final int maxWeight;
+    private int maxWeight;
 
     public FreightWagon(int wagonId, int maxWeight) {
         super(wagonId);
@@ -11,4 +11,9 @@ public class FreightWagon extends Wagon {
     public int getMaxWeight() {
         return this.maxWeight;
     }
+
+    void reset(int wagonId, int maxWeight) {
+        reset(wagonId);
+        this.maxWeight = maxWeight;
+    }
 }
@@ -0,0 +1,158 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive int keys to (non-null) values, using open addressing with linear probing,
+ * so that keys are never boxed into Integer objects.
+ *
+ * @param <V> the type of the values
+ */
+public class IntHashMap<V> {
+    private static final int INITIAL_CAPACITY = 16;   // must be a power of two
+
+    private int[] keys;
+    private Object[] values;        // a slot is free if and only if its value is null
+    private int size;
+    // representation-invariant
+    //      keys.length == values.length is a power of two, and at most 1/2 of the slots are in use
+    //      every key is found by probing forward from its home slot without passing a free slot
+
+    public IntHashMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public IntHashMap(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < 2 * expectedSize) capacity <<= 1;
+
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return values[findSlot(key)] != null;
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the value associated with the key, or <code>null</code> if the key is not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) values[findSlot(key)];
+    }
+
+    /**
+     * Associates the value with the key, replacing any earlier value of that key
+     *
+     * @param key   the key
+     * @param value the new (non-null) value of the key
+     * @return the former value of the key, or <code>null</code> if the key was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) throw new IllegalArgumentException("IntHashMap cannot hold null values for key " + key);
+
+        int slot = findSlot(key);
+        V former = (V) values[slot];
+
+        keys[slot] = key;
+        values[slot] = value;
+
+        if (former == null && ++size > keys.length / 2) resize(2 * keys.length);
+
+        return former;
+    }
+
+    /**
+     * Removes the key and its value from the map
+     *
+     * @param key the key to be removed
+     * @return the former value of the key, or <code>null</code> if the key was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = findSlot(key);
+        V former = (V) values[slot];
+
+        if (former != null) {
+            values[slot] = null;
+            size--;
+            closeGap(slot);
+        }
+
+        return former;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * @return the slot that holds the key, or the free slot where the key would be inserted
+     */
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Shifts entries back into the freed slot where needed, so that no probe sequence is broken
+     */
+    private void closeGap(int free) {
+        int mask = keys.length - 1;
+        int slot = (free + 1) & mask;
+
+        while (values[slot] != null) {
+            int home = hash(keys[slot]) & mask;
+
+            // move the entry if its home slot is not within the cyclic range (free, slot]
+            if (((slot - home) & mask) >= ((slot - free) & mask)) {
+                keys[free] = keys[slot];
+                values[free] = values[slot];
+                values[slot] = null;
+                free = slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = new int[capacity];
+        values = new Object[capacity];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        // spread sequential ids, such as wagon numbers, across the table
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
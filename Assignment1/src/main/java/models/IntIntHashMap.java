@@ -0,0 +1,161 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive int keys to non-negative int values, such as array indexes,
+ * using open addressing with linear probing, so that neither keys nor values are boxed.
+ * It follows {@link IntHashMap}, with -1 in the role of null.
+ */
+public class IntIntHashMap {
+    public static final int NO_VALUE = -1;
+    private static final int INITIAL_CAPACITY = 16;   // must be a power of two
+
+    private int[] keys;
+    private int[] values;           // a slot is free if and only if its value is NO_VALUE
+    private int size;
+    // representation-invariant
+    //      keys.length == values.length is a power of two, and at most 1/2 of the slots are in use
+    //      every key is found by probing forward from its home slot without passing a free slot
+
+    public IntIntHashMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < 2 * expectedSize) capacity <<= 1;
+
+        this.keys = new int[capacity];
+        this.values = newValues(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return values[findSlot(key)] != NO_VALUE;
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the value associated with the key, or NO_VALUE if the key is not in the map
+     */
+    public int get(int key) {
+        return values[findSlot(key)];
+    }
+
+    /**
+     * Associates the value with the key, replacing any earlier value of that key
+     *
+     * @param key   the key
+     * @param value the new (non-negative) value of the key
+     * @return the former value of the key, or NO_VALUE if the key was not in the map
+     */
+    public int put(int key, int value) {
+        if (value < 0) throw new IllegalArgumentException("IntIntHashMap cannot hold negative value " + value + " for key " + key);
+
+        int slot = findSlot(key);
+        int former = values[slot];
+
+        keys[slot] = key;
+        values[slot] = value;
+
+        if (former == NO_VALUE && ++size > keys.length / 2) resize(2 * keys.length);
+
+        return former;
+    }
+
+    /**
+     * Removes the key and its value from the map
+     *
+     * @param key the key to be removed
+     * @return the former value of the key, or NO_VALUE if the key was not in the map
+     */
+    public int remove(int key) {
+        int slot = findSlot(key);
+        int former = values[slot];
+
+        if (former != NO_VALUE) {
+            values[slot] = NO_VALUE;
+            size--;
+            closeGap(slot);
+        }
+
+        return former;
+    }
+
+    public void clear() {
+        Arrays.fill(values, NO_VALUE);
+        size = 0;
+    }
+
+    /**
+     * @return the slot that holds the key, or the free slot where the key would be inserted
+     */
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+
+        while (values[slot] != NO_VALUE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Shifts entries back into the freed slot where needed, so that no probe sequence is broken
+     */
+    private void closeGap(int free) {
+        int mask = keys.length - 1;
+        int slot = (free + 1) & mask;
+
+        while (values[slot] != NO_VALUE) {
+            int home = hash(keys[slot]) & mask;
+
+            // move the entry if its home slot is not within the cyclic range (free, slot]
+            if (((slot - home) & mask) >= ((slot - free) & mask)) {
+                keys[free] = keys[slot];
+                values[free] = values[slot];
+                values[slot] = NO_VALUE;
+                free = slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = new int[capacity];
+        values = newValues(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != NO_VALUE) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int[] newValues(int capacity) {
+        int[] values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+        return values;
+    }
+
+    private static int hash(int key) {
+        // spread sequential ids, such as wagon numbers, across the table
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -9,6 +9,10 @@ public class Locomotive {
         this.maxWagons = maxWagons;
     }
 
+    public int getLocNumber() {
+        return locNumber;
+    }
+
     public int getMaxWagons() {
         return maxWagons;
     }
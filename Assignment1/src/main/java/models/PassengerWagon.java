@@ -1,7 +1,7 @@
 package models;
 
 public class PassengerWagon extends Wagon {
-    private final int numberOfSeats;
+    private int numberOfSeats;
 
     public PassengerWagon(int wagonId, int numberOfSeats) {
         super(wagonId);
@@ -12,5 +12,10 @@ public class PassengerWagon extends Wagon {
         return numberOfSeats;
     }
 
+    void reset(int wagonId, int numberOfSeats) {
+        reset(wagonId);
+        this.numberOfSeats = numberOfSeats;
+    }
+
 
 }
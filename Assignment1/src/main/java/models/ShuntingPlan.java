@@ -0,0 +1,147 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of shunting operations that is applied to a train as a whole by {@link Train#apply(ShuntingPlan)}
+ * Positions in an operation refer to the train as it is after all preceding operations of the plan.
+ */
+public class ShuntingPlan {
+
+    public enum Status {
+        APPLIED,        // the operation has been applied to the train
+        REJECTED,       // the operation could not be applied, so the plan as a whole has not been applied
+        ROLLED_BACK,    // the operation had been applied, but has been undone because of a rejected operation
+        SKIPPED         // the operation has not been executed because of a rejected operation
+    }
+
+    enum Kind { MOVE, SPLIT, INSERT }
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    /**
+     * Adds an operation to move one wagon to the rear of another train, as by {@link Train#moveOneWagon(int, Train)}
+     *
+     * @param wagonId the id of the wagon you want to move
+     * @param toTrain the train you want to attach the wagon to
+     * @return this plan
+     */
+    public ShuntingPlan moveOneWagon(int wagonId, Train toTrain) {
+        operations.add(new Operation(Kind.MOVE, wagonId, 0, null, toTrain));
+        return this;
+    }
+
+    /**
+     * Adds an operation to split the train, as by {@link Train#splitAtPosition(int, Train)}
+     *
+     * @param position the position you want to split at
+     * @param toTrain  the train you want to attach all wagons beginning from position to
+     * @return this plan
+     */
+    public ShuntingPlan splitAtPosition(int position, Train toTrain) {
+        operations.add(new Operation(Kind.SPLIT, 0, position, null, toTrain));
+        return this;
+    }
+
+    /**
+     * Adds an operation to insert a sequence of wagons, as by {@link Train#insertAtPosition(int, Wagon)}
+     *
+     * @param position the position at which the sequence shall be inserted
+     * @param wagon    the first wagon of a sequence of wagons to be inserted
+     * @return this plan
+     */
+    public ShuntingPlan insertAtPosition(int position, Wagon wagon) {
+        operations.add(new Operation(Kind.INSERT, 0, position, wagon, null));
+        return this;
+    }
+
+    List<Operation> getOperations() {
+        return List.copyOf(operations);
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * A single operation of the plan
+     */
+    static class Operation {
+        final Kind kind;
+        final int wagonId;
+        final int position;
+        final Wagon wagon;
+        final Train toTrain;
+
+        private Operation(Kind kind, int wagonId, int position, Wagon wagon, Train toTrain) {
+            this.kind = kind;
+            this.wagonId = wagonId;
+            this.position = position;
+            this.wagon = wagon;
+            this.toTrain = toTrain;
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case MOVE:
+                    return "moveOneWagon(" + wagonId + ")";
+                case SPLIT:
+                    return "splitAtPosition(" + position + ")";
+                default:
+                    return "insertAtPosition(" + position + ", " + wagon + ")";
+            }
+        }
+    }
+
+    /**
+     * The outcome of applying a plan to a train, with the status of every operation
+     */
+    public static class Report {
+        private final List<Operation> operations;
+        private final Status[] statuses;
+
+        Report(List<Operation> operations, Status[] statuses) {
+            this.operations = operations;
+            this.statuses = statuses;
+        }
+
+        /**
+         * @return whether all operations of the plan have been applied
+         */
+        public boolean isSuccessful() {
+            for (Status status : statuses) {
+                if (status != Status.APPLIED) return false;
+            }
+            return true;
+        }
+
+        /**
+         * @param index the index of the operation in the plan (starting at 0)
+         * @return the status of that operation
+         */
+        public Status getStatus(int index) {
+            return statuses[index];
+        }
+
+        public int size() {
+            return statuses.length;
+        }
+
+        /**
+         * makes a string with one line for every operation of the plan and its status
+         * @return a string containing the status of all operations
+         */
+        @Override
+        public String toString() {
+            StringBuilder string = new StringBuilder();
+
+            for (int i = 0; i < statuses.length; i++) {
+                string.append(i + 1).append(": ").append(operations.get(i)).append(' ').append(statuses[i]).append('\n');
+            }
+
+            return string.toString();
+        }
+    }
+}
@@ -1,10 +1,40 @@
 package models;
 
-public class Train {
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class Train implements Iterable<Wagon> {
     private final String origin;
     private final String destination;
     private final Locomotive engine;
     private Wagon firstWagon;
+    private Wagon lastWagon;            // the final wagon of the sequence that starts at firstWagon
+    private int numberOfWagons;         // the length of the sequence that starts at firstWagon
+    private int totalNumberOfSeats;     // the sum of the seats of all passenger wagons in the sequence
+    private int totalMaxWeight;         // the sum of the maximum weights of all freight wagons in the sequence
+    private final IntHashMap<Wagon> wagonsById = new IntHashMap<>();   // all wagons in the sequence by their id
+    private boolean reversed;           // whether the order of the train is opposite to the links between its wagons
+    private TrainSnapshot snapshot;     // the snapshot of the current composition, or null if it has not been made yet
+    private String string;              // the rendering of the current composition, or null if it has not been made yet
+    // representation-invariant
+    //      lastWagon, numberOfWagons, the totals and wagonsById always describe the sequence that starts at firstWagon
+    //      and every wagon in that sequence refers back to this train by getTrain()
+    //      a sequence that moves to another train refers to that train from the moment it leaves this train,
+    //      so that its owner never reads as null while the sequence is being transferred
+    //      the sequence shall only be reconfigured by the methods of Train, so that these caches remain valid
+    //      if reversed, the train runs from lastWagon to firstWagon, otherwise from firstWagon to lastWagon
+    //      a train without wagons is never reversed
+    //      string and snapshot are reset to null by every change of the composition
 
     public Train(Locomotive engine, String origin, String destination) {
         this.engine = engine;
@@ -24,8 +54,58 @@ public class Train {
         return firstWagon instanceof FreightWagon;
     }
 
+    /**
+     * The links of a reversed train still run from its rear to its front until they are handed to another train,
+     * so its wagons are followed in the order of the train by iterating over the train.
+     *
+     * @return the first wagon of the train, without changing the train
+     */
     public Wagon getFirstWagon() {
-        return firstWagon;
+        return reversed ? lastWagon : firstWagon;
+    }
+
+    public Locomotive getEngine() {
+        return engine;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return an iterator over the wagons of the train, from the first wagon to the last wagon
+     */
+    @Override
+    public Iterator<Wagon> iterator() {
+        return new WagonIterator();
+    }
+
+    /**
+     * @return a sized spliterator over the wagons of the train, from the first wagon to the last wagon,
+     * which splits off batches of wagons for parallel processing
+     */
+    @Override
+    public Spliterator<Wagon> spliterator() {
+        return Spliterators.spliterator(iterator(), numberOfWagons,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT);
+    }
+
+    /**
+     * @return a sequential stream of the wagons of the train, from the first wagon to the last wagon
+     */
+    public Stream<Wagon> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * @return a parallel stream of the wagons of the train
+     */
+    public Stream<Wagon> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
     }
 
     /**
@@ -36,21 +116,38 @@ public class Train {
      * @param wagon the first wagon of a sequence of wagons to be attached
      */
     public void setFirstWagon(Wagon wagon) {
-        this.firstWagon = wagon;
+        for (Wagon current = firstWagon; current != null; current = current.getNextWagon()) {
+            current.setTrain(null);
+        }
+
+        firstWagon = null;
+        lastWagon = null;
+        reversed = false;
+        numberOfWagons = 0;
+        totalNumberOfSeats = 0;
+        totalMaxWeight = 0;
+        wagonsById.clear();
+        modified();
+
+        if (wagon != null) {
+            detachSequence(wagon);
+            firstWagon = wagon;
+            lastWagon = adopt(wagon);
+        }
     }
 
     /**
      * @return the number of Wagons connected to the train
      */
     public int getNumberOfWagons() {
-        return firstWagon == null ? 0 : firstWagon.getTailLength() + 1;
+        return numberOfWagons;
     }
 
     /**
      * @return the last wagon attached to the train
      */
     public Wagon getLastWagonAttached() {
-        return firstWagon == null ? null : firstWagon.getLastWagonAttached();
+        return reversed ? firstWagon : lastWagon;
     }
 
     /**
@@ -58,18 +155,7 @@ public class Train {
      * (return 0 for a freight train)
      */
     public int getTotalNumberOfSeats() {
-        int nrOfSeats = 0;
-
-        if (isPassengerTrain()) {
-            PassengerWagon currentWagon = (PassengerWagon) firstWagon;
-
-            for (int i = 0; i <= firstWagon.getTailLength(); i++) {
-                nrOfSeats += currentWagon.getNumberOfSeats();
-                currentWagon = (PassengerWagon) currentWagon.getNextWagon();
-            }
-        }
-
-        return nrOfSeats;
+        return totalNumberOfSeats;
     }
 
     /**
@@ -79,37 +165,36 @@ public class Train {
      * (return 0 for a passenger train)
      */
     public int getTotalMaxWeight() {
-        int maxWeight = 0;
-
-        if (isFreightTrain()) {
-            FreightWagon currentWagon = (FreightWagon) firstWagon;
-
-            for (int i = 0; i <= firstWagon.getTailLength(); i++) {
-                maxWeight += currentWagon.getMaxWeight();
-                currentWagon = (FreightWagon) currentWagon.getNextWagon();
-            }
-        }
-
-        return maxWeight;
+        return totalMaxWeight;
     }
 
     /**
      * Finds the wagon at the given position (starting at 1 for the first wagon of the train)
+     * The search starts from whichever end of the train is nearest to the position.
      *
      * @param position the position you want to find the wagon in
      * @return the wagon found at the given position
      * (return null if the position is not valid for this train)
      */
     public Wagon findWagonAtPosition(int position) {
-        Wagon wagonAtPos = firstWagon;
+        if (position <= 0 || position > numberOfWagons) return null;
+        if (reversed) position = numberOfWagons - position + 1;
+
+        Wagon wagonAtPos;
 
-        if (!(position <= 0 || position > getNumberOfWagons() || wagonAtPos == null)) {
+        if (position <= numberOfWagons / 2) {
+            wagonAtPos = firstWagon;
             for (int i = 1; i < position; i++) {
                 wagonAtPos = wagonAtPos.getNextWagon();
             }
-            return wagonAtPos;
+        } else {
+            wagonAtPos = lastWagon;
+            for (int i = numberOfWagons; i > position; i--) {
+                wagonAtPos = wagonAtPos.getPreviousWagon();
+            }
         }
-        return null;
+
+        return wagonAtPos;
     }
 
     /**
@@ -120,40 +205,48 @@ public class Train {
      * (return null if no wagon was found with the given wagonId)
      */
     public Wagon findWagonById(int wagonId) {
-        Wagon currentWagon = firstWagon;
-
-        if (currentWagon != null) {
-            for (int i = 0; i < getNumberOfWagons(); i++) {
-
-                if (currentWagon.getId() == wagonId) {
-                    return currentWagon;
-                }
-
-                currentWagon = currentWagon.getNextWagon();
-            }
-        }
-
-        return null;
+        return wagonsById.get(wagonId);
     }
 
     /**
      * Determines if the given sequence of wagons can be attached to the train
      * Verfies of the type of wagons match the type of train (Passenger or Freight)
      * Verfies that the capacity of the engine is sufficient to pull the additional wagons
+     * Verfies that none of the wagons is already part of the train
      *
      * @param wagon the first wagon of a sequence of wagons to be attached
      * @return whether attaching is possible
      */
     public boolean canAttach(Wagon wagon) {
-        final int SPACE_OWN_WAGON = 1;
+        if (wagon == null || !isCompatible(wagon)) return false;
 
-        if (firstWagon == null) {
-            return engine.getMaxWagons() >= wagon.getTailLength() + SPACE_OWN_WAGON &&
-                    findWagonById(wagon.getId()) == null;
+        int freeCapacity = engine.getMaxWagons() - numberOfWagons;
+
+        for (Wagon current = wagon; current != null; current = nextInOrder(current)) {
+            if (--freeCapacity < 0 || wagonsById.containsKey(current.getId())) return false;
         }
-        return firstWagon.getClass() == wagon.getClass() &&
-                engine.getMaxWagons() >= (getNumberOfWagons() + (wagon.getTailLength() + SPACE_OWN_WAGON)) &&
-                findWagonById(wagon.getId()) == null;
+
+        return true;
+    }
+
+    /**
+     * Determines if the given single wagon, regardless of any wagons attached to its tail,
+     * can be attached to the train
+     *
+     * @param wagon the wagon to be attached
+     * @return whether attaching is possible
+     */
+    private boolean canAttachOne(Wagon wagon) {
+        return isCompatible(wagon) &&
+                engine.getMaxWagons() > numberOfWagons &&
+                !wagonsById.containsKey(wagon.getId());
+    }
+
+    /**
+     * @return whether the type of the wagon matches the type of the train (if it has any wagons yet)
+     */
+    private boolean isCompatible(Wagon wagon) {
+        return firstWagon == null || firstWagon.getClass() == wagon.getClass();
     }
 
     /**
@@ -166,16 +259,8 @@ public class Train {
      * @return whether the attachment could be completed successfully
      */
     public boolean attachToRear(Wagon wagon) {
-
         if (canAttach(wagon)) {
-            wagon.detachFront();
-
-            if (firstWagon == null) {
-                firstWagon = wagon;
-            } else {
-                firstWagon.getLastWagonAttached().attachTail(wagon);
-            }
-
+            append(wagon);
             return true;
         }
         return false;
@@ -193,13 +278,7 @@ public class Train {
      */
     public boolean insertAtFront(Wagon wagon) {
         if (canAttach(wagon)) {
-            wagon.detachFront();
-
-            if (firstWagon != null) {
-                wagon.getLastWagonAttached().attachTail(firstWagon);
-            }
-
-            firstWagon = wagon;
+            insertBefore(reversed ? lastWagon : firstWagon, wagon);
             return true;
         }
         return false;
@@ -216,17 +295,16 @@ public class Train {
      * @return whether the insertion could be completed successfully
      */
     public boolean insertAtPosition(int position, Wagon wagon) {
-        Wagon wagonAtPos = findWagonAtPosition(position);
         final int FIRST_WAGON_POSITION = 1;
 
-        if (canAttach(wagon) && wagonAtPos != null) {
-            wagon.detachFront();
-            Wagon head = wagonAtPos.detachFront();
-            head.attachTail(wagon);
-            wagon.getLastWagonAttached().attachTail(wagonAtPos);
-            return true;
-        } else if (canAttach(wagon) && position == FIRST_WAGON_POSITION) {
-            firstWagon = wagon;
+        if (position == FIRST_WAGON_POSITION) {
+            return insertAtFront(wagon);
+        }
+
+        Wagon wagonAtPos = findWagonAtPosition(position);
+
+        if (wagonAtPos != null && canAttach(wagon)) {
+            insertBefore(wagonAtPos, wagon);
             return true;
         }
 
@@ -247,14 +325,9 @@ public class Train {
     public boolean moveOneWagon(int wagonId, Train toTrain) {
         Wagon moveWagon = findWagonById(wagonId);
 
-        if (moveWagon != null && toTrain.canAttach(moveWagon)) {
-
-            if (moveWagon == firstWagon) {
-                firstWagon = moveWagon.getNextWagon();
-            }
-
-            moveWagon.removeFromSequence();
-            toTrain.attachToRear(moveWagon);
+        if (moveWagon != null && toTrain.canAttachOne(moveWagon)) {
+            removeSegment(moveWagon, moveWagon, toTrain);
+            toTrain.append(moveWagon);
             return true;
         }
 
@@ -273,21 +346,11 @@ public class Train {
      * @return whether the move could be completed successfully
      */
     public boolean splitAtPosition(int position, Train toTrain) {
+        normalize();
         Wagon wagonAtPos = findWagonAtPosition(position);
-        final int FIRST_WAGON_POSITION = 1;
-
-        if (wagonAtPos != null && toTrain.canAttach(wagonAtPos)) {
-            wagonAtPos.detachFront();
 
-            if (position == FIRST_WAGON_POSITION) {
-                firstWagon = null;
-            }
-
-            toTrain.attachToRear(wagonAtPos);
-            return true;
-        }
-
-        return false;
+        // attachToRear detaches the tail from this train by detachSequence
+        return wagonAtPos != null && toTrain.attachToRear(wagonAtPos);
     }
 
     /**
@@ -296,38 +359,553 @@ public class Train {
      * the previous wagon of the last wagon becomes the second wagon
      * etc.
      * (No change if the train has no wagons or only one wagon)
+     * Only the orientation of the train is flipped; the links between the wagons are reversed later on,
+     * when the sequence of wagons is handed to another train.
      */
     public void reverse() {
-        if (firstWagon != null) {
+        if (numberOfWagons > 1) {
+            reversed = !reversed;
+            modified();
+        }
+    }
+
+    /**
+     * @param wagon a wagon, which may be part of a train
+     * @return the wagon that follows the given wagon in the order of its train (or of its links, if it has no train),
+     * without normalizing that train
+     */
+    static Wagon nextInOrder(Wagon wagon) {
+        Train train = wagon.getTrain();
+        return train != null && train.reversed ? wagon.getPreviousWagon() : wagon.getNextWagon();
+    }
+
+    /**
+     * Reverses the links between the wagons of a reversed train, so that they follow the order of the train again
+     * (this does not change the composition of the train)
+     */
+    void normalize() {
+        if (reversed) {
+            lastWagon = firstWagon;
             firstWagon = firstWagon.reverseSequence();
+            reversed = false;
         }
     }
 
+    /**
+     * Takes an immutable snapshot of the current composition of the train, for exploring alternative compositions.
+     * The snapshot is made once in O(n) time and then shared, until the composition of the train changes,
+     * so changes of the train itself never pay for snapshots. All snapshots that are derived from it
+     * share their unchanged parts with it.
+     *
+     * @return the snapshot of the train
+     */
+    public TrainSnapshot snapshot() {
+        if (snapshot == null) snapshot = TrainSnapshot.of(this);
+        return snapshot;
+    }
+
+    /**
+     * Applies all operations of the shunting plan to this train, in the order of the plan.
+     * Either all operations are applied or none of them:
+     * first the engine capacities and wagon types of all involved trains are verified for the complete plan,
+     * then the operations are executed, locating positions by a single cursor that travels along the train.
+     * If an operation still turns out to be impossible, all preceding operations are undone again.
+     *
+     * @param plan the operations to apply to this train
+     * @return a report with the status of every operation of the plan
+     */
+    public ShuntingPlan.Report apply(ShuntingPlan plan) {
+        List<ShuntingPlan.Operation> operations = plan.getOperations();
+        normalize();
+        ShuntingPlan.Status[] statuses = new ShuntingPlan.Status[operations.size()];
+        Arrays.fill(statuses, ShuntingPlan.Status.SKIPPED);
+
+        int rejected = validate(operations);
+
+        if (rejected < 0) {
+            Undo[] undos = new Undo[operations.size()];
+            Cursor cursor = new Cursor();
+
+            for (int i = 0; i < operations.size() && rejected < 0; i++) {
+                undos[i] = execute(operations.get(i), cursor);
+
+                if (undos[i] != null) {
+                    statuses[i] = ShuntingPlan.Status.APPLIED;
+                } else {
+                    rejected = i;
+                }
+            }
+
+            if (rejected >= 0) {
+                for (int i = rejected - 1; i >= 0; i--) {
+                    undo(operations.get(i), undos[i]);
+                    statuses[i] = ShuntingPlan.Status.ROLLED_BACK;
+                }
+            }
+        }
+
+        if (rejected >= 0) statuses[rejected] = ShuntingPlan.Status.REJECTED;
+
+        return new ShuntingPlan.Report(operations, statuses);
+    }
+
+    /**
+     * Simulates the numbers and types of wagons of all trains involved in the plan,
+     * and verifies the capacity and type compatibility of every operation.
+     *
+     * @return the index of the first operation that cannot be applied, or -1 if all of them can be
+     */
+    private int validate(List<ShuntingPlan.Operation> operations) {
+        Map<Train, Composition> compositions = new IdentityHashMap<>();
+        Composition self = Composition.of(this, compositions);
+
+        for (int i = 0; i < operations.size(); i++) {
+            ShuntingPlan.Operation operation = operations.get(i);
+            Composition target = operation.toTrain == null ? self : Composition.of(operation.toTrain, compositions);
+            int length;
+            Class<?> type;
+
+            switch (operation.kind) {
+                case MOVE:
+                    length = 1;
+                    type = self.type;
+                    if (target == self || self.length == 0) return i;
+                    break;
+                case SPLIT:
+                    length = self.length - operation.position + 1;
+                    type = self.type;
+                    if (target == self || operation.position < 1 || length < 1) return i;
+                    break;
+                default:
+                    length = 0;
+                    for (Wagon current = operation.wagon; current != null; current = nextInOrder(current)) length++;
+                    type = operation.wagon.getClass();
+                    if (operation.position < 1 || operation.position > Math.max(self.length, 1)) return i;
+                    if (operation.wagon.getTrain() != null) {
+                        Composition.of(operation.wagon.getTrain(), compositions).remove(length);
+                    }
+            }
+
+            if (!target.canAdd(type, length)) return i;
+
+            target.add(type, length);
+            if (target != self) self.remove(length);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Executes a single operation of a plan
+     *
+     * @param operation the operation to execute
+     * @param cursor    the most recently visited position in this train
+     * @return what is needed to undo the operation, or null if the operation could not be executed
+     */
+    private Undo execute(ShuntingPlan.Operation operation, Cursor cursor) {
+        Undo undo = new Undo();
+
+        switch (operation.kind) {
+            case MOVE:
+                undo.wagon = wagonsById.get(operation.wagonId);
+                if (undo.wagon == null || !operation.toTrain.canAttachOne(undo.wagon)) return null;
+
+                // the removal shifts the positions of an unknown part of the train
+                cursor.wagon = null;
+                undo.anchor = undo.wagon.getNextWagon();
+                removeSegment(undo.wagon, undo.wagon, operation.toTrain);
+                operation.toTrain.append(undo.wagon);
+                break;
+            case SPLIT:
+                undo.wagon = seek(cursor, operation.position);
+                if (undo.wagon == null || !operation.toTrain.canAttach(undo.wagon)) return null;
+
+                operation.toTrain.append(undo.wagon);
+                cursor.wagon = lastWagon;
+                cursor.position = numberOfWagons;
+                break;
+            default:
+                undo.wagon = operation.wagon;
+                Wagon wagonAtPos = seek(cursor, operation.position);
+                if ((wagonAtPos == null && operation.position != 1) || !canAttach(undo.wagon)) return null;
+
+                undo.formerTrain = undo.wagon.getTrain();
+                undo.anchor = undo.wagon.getPreviousWagon();
+                insertBefore(wagonAtPos, undo.wagon);
+                undo.sequenceEnd = wagonAtPos == null ? lastWagon : wagonAtPos.getPreviousWagon();
+                cursor.wagon = undo.wagon;
+                cursor.position = operation.position;
+                break;
+        }
+
+        return undo;
+    }
+
+    /**
+     * Reverts an executed operation of a plan, after all later operations of the plan have been reverted
+     *
+     * @param operation the operation to revert
+     * @param undo      what was recorded when the operation was executed
+     */
+    private void undo(ShuntingPlan.Operation operation, Undo undo) {
+        switch (operation.kind) {
+            case MOVE:
+                operation.toTrain.removeSegment(undo.wagon, undo.wagon, this);
+                insertBefore(undo.anchor, undo.wagon);
+                break;
+            case SPLIT:
+                append(undo.wagon);
+                break;
+            default:
+                removeSegment(undo.wagon, undo.sequenceEnd, undo.formerTrain);
+                if (undo.formerTrain != null) {
+                    undo.formerTrain.append(undo.wagon);
+                } else if (undo.anchor != null) {
+                    undo.anchor.attachTail(undo.wagon);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Finds the wagon at the given position, starting from the cursor or from the nearest end of the train,
+     * and moves the cursor to that position
+     *
+     * @return the wagon found at the given position
+     * (return null if the position is not valid for this train)
+     */
+    private Wagon seek(Cursor cursor, int position) {
+        if (position <= 0 || position > numberOfWagons) return null;
+
+        if (cursor.wagon == null || Math.abs(position - cursor.position) > Math.min(position - 1, numberOfWagons - position)) {
+            cursor.wagon = findWagonAtPosition(position);
+        } else {
+            for (; cursor.position < position; cursor.position++) cursor.wagon = cursor.wagon.getNextWagon();
+            for (; cursor.position > position; cursor.position--) cursor.wagon = cursor.wagon.getPreviousWagon();
+        }
+
+        cursor.position = position;
+        return cursor.wagon;
+    }
+
+    /**
+     * Appends the sequence of wagons starting at the given wagon to the rear of this train,
+     * without verifying whether that is possible
+     *
+     * @param wagon the first wagon of the sequence
+     */
+    private void append(Wagon wagon) {
+        insertBefore(null, wagon);
+    }
+
+    /**
+     * Inserts the sequence of wagons starting at the given wagon in front of a wagon of this train,
+     * in the order of this train, without verifying whether that is possible
+     *
+     * @param wagonAtPos the wagon of this train in front of which the sequence is inserted,
+     *                   or null to append the sequence at the rear
+     * @param wagon      the first wagon of the sequence
+     */
+    private void insertBefore(Wagon wagonAtPos, Wagon wagon) {
+        detachSequence(wagon);
+        modified();
+
+        if (reversed) {
+            // the links of a reversed train run from its rear to its front, so the sequence is linked
+            // in reverse behind the wagon at the position
+            wagonAtPos = wagonAtPos == null ? firstWagon : wagonAtPos.getNextWagon();
+            wagon = wagon.reverseSequence();
+        }
+
+        Wagon sequenceEnd = adopt(wagon);
+
+        if (wagonAtPos == null) {
+            if (firstWagon == null) {
+                firstWagon = wagon;
+            } else {
+                lastWagon.attachTail(wagon);
+            }
+            lastWagon = sequenceEnd;
+        } else {
+            Wagon head = wagonAtPos.detachFront();
+
+            if (head == null) {
+                firstWagon = wagon;
+            } else {
+                head.attachTail(wagon);
+            }
+            sequenceEnd.attachTail(wagonAtPos);
+        }
+    }
+
+    /**
+     * Removes the sequence of wagons from head until end from this train
+     * and reconnects the wagons in front of and behind that sequence
+     *
+     * @param head     the first wagon of the sequence to be removed
+     * @param end      the last wagon of the sequence to be removed
+     * @param newOwner the train that is going to take the sequence, or null if the sequence becomes detached
+     */
+    private void removeSegment(Wagon head, Wagon end, Train newOwner) {
+        modified();
+
+        Wagon front = head.detachFront();
+        Wagon rear = end.detachTail();
+
+        for (Wagon current = head; current != null; current = current.getNextWagon()) {
+            release(current, newOwner);
+        }
+
+        if (front == null) {
+            firstWagon = rear;
+        } else if (rear != null) {
+            front.attachTail(rear);
+        }
+
+        if (rear == null) {
+            lastWagon = front;
+        }
+        if (firstWagon == null) {
+            reversed = false;
+        }
+    }
+
+    /**
+     * Detaches the sequence of wagons starting at the given wagon from the wagons in front of it,
+     * to be taken by this train.
+     * If the sequence is part of another train, that train gives up the complete sequence
+     * and updates its own administration accordingly.
+     * (a sequence that already refers to this train has been handed over by its former train)
+     *
+     * @param wagon the first wagon of the sequence to be detached
+     */
+    private void detachSequence(Wagon wagon) {
+        Train formerTrain = wagon.getTrain();
+
+        if (formerTrain != null && formerTrain != this) {
+            formerTrain.normalize();
+            formerTrain.removeTail(wagon, this);
+        } else {
+            wagon.detachFront();
+        }
+    }
+
+    /**
+     * Removes the wagon and all its successors from this train
+     *
+     * @param wagon    a wagon of this train, which will become the head of a detached sequence
+     * @param newOwner the train that is going to take the sequence
+     */
+    private void removeTail(Wagon wagon, Train newOwner) {
+        removeSegment(wagon, lastWagon, newOwner);
+    }
+
+    /**
+     * Registers all wagons of the sequence starting at the given wagon as part of this train
+     * (the caller links the sequence into the train)
+     *
+     * @param wagon the first wagon of a detached sequence
+     * @return the last wagon of the sequence
+     */
+    private Wagon adopt(Wagon wagon) {
+        Wagon current = wagon;
+
+        while (true) {
+            current.setTrain(this);
+            wagonsById.put(current.getId(), current);
+            numberOfWagons++;
+            totalNumberOfSeats += seatsOf(current);
+            totalMaxWeight += maxWeightOf(current);
+
+            if (!current.hasNextWagon()) return current;
+            current = current.getNextWagon();
+        }
+    }
+
+    /**
+     * Unregisters a single wagon from this train
+     * (the caller unlinks the wagon from the train)
+     *
+     * @param wagon    a wagon of this train
+     * @param newOwner the train that is going to take the wagon, or null if the wagon becomes detached
+     */
+    private void release(Wagon wagon, Train newOwner) {
+        wagon.setTrain(newOwner);
+        wagonsById.remove(wagon.getId());
+        numberOfWagons--;
+        totalNumberOfSeats -= seatsOf(wagon);
+        totalMaxWeight -= maxWeightOf(wagon);
+    }
+
+    /**
+     * Discards the rendering and the snapshot of the former composition of the train
+     */
+    private void modified() {
+        string = null;
+        snapshot = null;
+    }
+
+    private static int seatsOf(Wagon wagon) {
+        return wagon instanceof PassengerWagon ? ((PassengerWagon) wagon).getNumberOfSeats() : 0;
+    }
+
+    private static int maxWeightOf(Wagon wagon) {
+        return wagon instanceof FreightWagon ? ((FreightWagon) wagon).getMaxWeight() : 0;
+    }
+
     /**
      * makes a string of all information about the train (locomotive, wagons, number of wagons,
      * origin, destination, number of seats or maximum weight)
+     * The string is made once and then shared, until the composition of the train changes.
      * @return a string containing all information about the train
      */
     @Override
     public String toString() {
-        StringBuilder string = new StringBuilder(engine.toString());
-        Wagon curWagon = firstWagon;
+        if (string == null) {
+            StringBuilder builder = new StringBuilder(16 * numberOfWagons + origin.length() + destination.length() + 64);
+            try {
+                render(builder);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);      // a StringBuilder does not throw
+            }
+            string = builder.toString();
+        }
+        return string;
+    }
 
-        for (int i = 0; i < getNumberOfWagons(); i++) {
-            string.append(curWagon.toString());
-            curWagon = curWagon.getNextWagon();
+    /**
+     * Writes all information about the train in the format of toString() to a stream of characters,
+     * without making a string of the whole train or of any of its wagons
+     *
+     * @param out the destination of the characters
+     * @throws IOException if the destination fails
+     */
+    public void writeTo(Appendable out) throws IOException {
+        if (string != null) {
+            out.append(string);
+        } else {
+            render(out);
+        }
+    }
+
+    private void render(Appendable out) throws IOException {
+        out.append("[Loc-");
+        appendNumber(out, engine.getLocNumber());
+        out.append(']');
+
+        for (Wagon curWagon : this) {
+            out.append("[Wagon-");
+            appendNumber(out, curWagon.getId());
+            out.append(']');
         }
 
-        string.append(" with ").append(getNumberOfWagons()).append(" wagons from ").append(origin).append(" to ").append(destination);
+        out.append(" with ");
+        appendNumber(out, numberOfWagons);
+        out.append(" wagons from ").append(origin).append(" to ").append(destination);
 
         if (isFreightTrain()) {
-            string.append("\nTotal maximum weight: ").append(getTotalMaxWeight());
+            out.append("\nTotal maximum weight: ");
+            appendNumber(out, totalMaxWeight);
         }
 
         if (isPassengerTrain()) {
-            string.append("\nTotal number of seats: ").append(getTotalNumberOfSeats());
+            out.append("\nTotal number of seats: ");
+            appendNumber(out, totalNumberOfSeats);
         }
+    }
 
-        return string.toString();
+    /**
+     * Appends the decimal digits of a number one character at a time, so that no string is made for the number
+     */
+    private static void appendNumber(Appendable out, int number) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(number);
+            return;
+        }
+        if (number < 0) {
+            out.append('-');
+        } else {
+            number = -number;           // work with negative numbers, which also covers Integer.MIN_VALUE
+        }
+
+        int divisor = 1;
+        while (number / divisor <= -10) divisor *= 10;
+        for (; divisor != 0; divisor /= 10) {
+            out.append((char) ('0' - number / divisor));
+            number %= divisor;
+        }
+    }
+
+    /**
+     * Iterates the wagons in the order of the train, which runs against the links of a reversed train
+     */
+    private class WagonIterator implements Iterator<Wagon> {
+        private Wagon next = reversed ? lastWagon : firstWagon;
+        private final boolean backwards = reversed;
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Wagon next() {
+            if (next == null) throw new NoSuchElementException();
+
+            Wagon current = next;
+            next = backwards ? current.getPreviousWagon() : current.getNextWagon();
+            return current;
+        }
+    }
+
+    /**
+     * A position in the train that has been visited most recently by a plan
+     */
+    private static class Cursor {
+        private Wagon wagon;        // the wagon at the position, or null if the cursor has no valid position
+        private int position;
+    }
+
+    /**
+     * The information that is needed to revert an operation of a plan
+     */
+    private static class Undo {
+        private Wagon wagon;            // the (first) wagon that was moved by the operation
+        private Wagon sequenceEnd;      // the last wagon of an inserted sequence
+        private Wagon anchor;           // the wagon behind a moved wagon, or in front of an inserted sequence
+        private Train formerTrain;      // the train that held an inserted sequence before
+    }
+
+    /**
+     * The simulated number and type of wagons of a train during the validation of a plan
+     */
+    private static class Composition {
+        private final int maxWagons;
+        private int length;
+        private Class<?> type;
+
+        private Composition(Train train) {
+            this.maxWagons = train.engine.getMaxWagons();
+            this.length = train.numberOfWagons;
+            this.type = train.firstWagon == null ? null : train.firstWagon.getClass();
+        }
+
+        private static Composition of(Train train, Map<Train, Composition> compositions) {
+            return compositions.computeIfAbsent(train, Composition::new);
+        }
+
+        private boolean canAdd(Class<?> type, int length) {
+            return (this.type == null || this.type == type) && this.length + length <= maxWagons;
+        }
+
+        private void add(Class<?> type, int length) {
+            this.type = type;
+            this.length += length;
+        }
+
+        private void remove(int length) {
+            this.length -= length;
+            if (this.length <= 0) type = null;
+        }
     }
 }
@@ -0,0 +1,174 @@
+package models;
+
+/**
+ * A change of the trains of a {@link Fleet}, as reported to its listeners after the change has been made.
+ * Trains are referred to by their ids within the fleet.
+ */
+public class TrainEvent {
+
+    public enum Type {
+        REGISTER,       // a train has been added to the fleet
+        ATTACH,         // a sequence of wagons has been attached to the rear of a train
+        INSERT,         // a sequence of wagons has been inserted at a position of a train
+        MOVE,           // one wagon has been moved from a train to the rear of another train
+        SPLIT,          // a train has been split and its rear part has been attached to another train
+        REVERSE,        // a train has been reversed
+        STATE           // a train has been reconfigured by a shunting plan, and now has the composition of getTrain()
+    }
+
+    private final Type type;
+    private final int trainId;
+    private final int position;         // the position of an insert or split
+    private final int otherTrainId;     // the receiving train of a move or split, or the former train of an attached
+                                        // sequence of wagons (-1 if the sequence was not part of any train)
+    private final int otherPosition;    // the former position of an attached sequence in its former train
+    private final int wagonId;          // the moved wagon
+    private final boolean freight;      // whether an attached sequence that was not part of any train has freight wagons
+    private final int[] wagonIds;       // the ids of such a sequence
+    private final int[] capacities;     // the seats or maximum weights of such a sequence
+    private final Train train;          // the train of a register or state event
+
+    private TrainEvent(Type type, int trainId, int position, int otherTrainId, int otherPosition, int wagonId,
+                       boolean freight, int[] wagonIds, int[] capacities, Train train) {
+        this.type = type;
+        this.trainId = trainId;
+        this.position = position;
+        this.otherTrainId = otherTrainId;
+        this.otherPosition = otherPosition;
+        this.wagonId = wagonId;
+        this.freight = freight;
+        this.wagonIds = wagonIds;
+        this.capacities = capacities;
+        this.train = train;
+    }
+
+    static TrainEvent registered(int trainId, Train train) {
+        return new TrainEvent(Type.REGISTER, trainId, 0, -1, 0, 0, false, null, null, train);
+    }
+
+    static TrainEvent reconfigured(int trainId, Train train) {
+        return new TrainEvent(Type.STATE, trainId, 0, -1, 0, 0, false, null, null, train);
+    }
+
+    static TrainEvent moved(int fromTrainId, int wagonId, int toTrainId) {
+        return new TrainEvent(Type.MOVE, fromTrainId, 0, toTrainId, 0, wagonId, false, null, null, null);
+    }
+
+    static TrainEvent split(int fromTrainId, int position, int toTrainId) {
+        return new TrainEvent(Type.SPLIT, fromTrainId, position, toTrainId, 0, 0, false, null, null, null);
+    }
+
+    static TrainEvent reversed(int trainId) {
+        return new TrainEvent(Type.REVERSE, trainId, 0, -1, 0, 0, false, null, null, null);
+    }
+
+    /**
+     * Describes the attachment of a sequence of wagons that has yet to be made
+     *
+     * @param type          ATTACH or INSERT
+     * @param trainId       the receiving train
+     * @param position      the position of an insert
+     * @param formerTrainId the train that holds the sequence, or -1 if it is not part of any train
+     * @param wagon         the first wagon of the sequence, in the order of its former train
+     */
+    static TrainEvent attached(Type type, int trainId, int position, int formerTrainId, Wagon wagon) {
+        if (formerTrainId >= 0) {
+            int formerPosition = 1;
+            for (Wagon current = wagon.getPreviousWagon(); current != null; current = current.getPreviousWagon()) {
+                formerPosition++;
+            }
+            return new TrainEvent(type, trainId, position, formerTrainId, formerPosition, 0, false, null, null, null);
+        }
+
+        int[] wagonIds = new int[wagon.getTailLength() + 1];
+        int[] capacities = new int[wagonIds.length];
+        int index = 0;
+
+        for (Wagon current = wagon; current != null; current = current.getNextWagon()) {
+            wagonIds[index] = current.getId();
+            capacities[index++] = current instanceof FreightWagon ? ((FreightWagon) current).getMaxWeight()
+                    : ((PassengerWagon) current).getNumberOfSeats();
+        }
+
+        return new TrainEvent(type, trainId, position, -1, 0, 0, wagon instanceof FreightWagon, wagonIds, capacities, null);
+    }
+
+    static TrainEvent attached(Type type, int trainId, int position, int formerTrainId, int formerPosition) {
+        return new TrainEvent(type, trainId, position, formerTrainId, formerPosition, 0, false, null, null, null);
+    }
+
+    static TrainEvent attached(Type type, int trainId, int position, boolean freight, int[] wagonIds, int[] capacities) {
+        return new TrainEvent(type, trainId, position, -1, 0, 0, freight, wagonIds, capacities, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the id of the train that has been registered, reconfigured, attached to, split, reversed,
+     * or that a wagon has been moved from
+     */
+    public int getTrainId() {
+        return trainId;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the id of the receiving train of a move or split, or of the former train of an attached sequence
+     * (return -1 if there is no such train)
+     */
+    public int getOtherTrainId() {
+        return otherTrainId;
+    }
+
+    /**
+     * @return the position of the first wagon of an attached sequence in its former train
+     */
+    public int getOtherPosition() {
+        return otherPosition;
+    }
+
+    public int getWagonId() {
+        return wagonId;
+    }
+
+    /**
+     * @return whether an attached sequence that was not part of any train consists of freight wagons
+     */
+    public boolean isFreight() {
+        return freight;
+    }
+
+    /**
+     * @return the ids of an attached sequence that was not part of any train
+     * (return null for other events)
+     */
+    public int[] getWagonIds() {
+        return wagonIds;
+    }
+
+    /**
+     * @return the seats or maximum weights of an attached sequence that was not part of any train
+     * (return null for other events)
+     */
+    public int[] getCapacities() {
+        return capacities;
+    }
+
+    /**
+     * @return the train of a register or state event, which may only be inspected while the listener is notified
+     * (return null for other events)
+     */
+    public Train getTrain() {
+        return train;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + trainId + ")";
+    }
+}
@@ -0,0 +1,478 @@
+package models;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A durable log of all changes of a {@link Fleet}, from which the fleet can be rebuilt after a restart.
+ *
+ * The log directory holds the latest snapshot of the fleet, snapshot-S.fleet in the format of {@link FleetFile},
+ * which includes the first S events, and the log file events-S.log with all later events.
+ * Events are appended to a buffer and written in batches; after every syncInterval events
+ * (or by {@link #sync()}) they are forced to disk together, so a crash loses at most the unsynced events.
+ * Every event is framed by its length and a CRC-32, so that a torn final event is recognised and discarded.
+ * A {@link #checkpoint()} writes a new snapshot and starts a new log file, which bounds the time of a replay;
+ * after every checkpointInterval events a checkpoint is taken by a background thread,
+ * because the event is handled while the changed trains are locked and a snapshot must lock all trains.
+ */
+public class TrainEventLog implements FleetListener, Closeable {
+    public static final int DEFAULT_SYNC_INTERVAL = 8192;
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 1 << 20;
+
+    static final int MAGIC = 0x544C4F47;
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final TrainEvent.Type[] TYPES = TrainEvent.Type.values();
+
+    private final Path directory;
+    private final Fleet fleet;
+    private final int syncInterval;
+    private final long checkpointInterval;
+    private final Payload payload = new Payload();
+    private final DataOutputStream payloadOutput = new DataOutputStream(payload);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private DataOutputStream output;
+    private long sequence;              // the number of events since the fleet was created
+    private long snapshotSequence;      // the number of events that are included in the latest snapshot
+    private int unsynced;               // the number of events that have not been forced to disk yet
+    private boolean checkpointPending;  // whether a background checkpoint has been started and not finished yet
+    private IOException checkpointFailure;  // the failure of the latest background checkpoint, if any
+    private boolean closed;
+    // representation-invariant
+    //      the file events-<snapshotSequence>.log, followed by the buffer of output,
+    //      holds the events from snapshotSequence until sequence
+
+    private TrainEventLog(Path directory, Fleet fleet, int syncInterval, long checkpointInterval,
+                          long sequence, long snapshotSequence) {
+        this.directory = directory;
+        this.fleet = fleet;
+        this.syncInterval = syncInterval;
+        this.checkpointInterval = checkpointInterval;
+        this.sequence = sequence;
+        this.snapshotSequence = snapshotSequence;
+    }
+
+    /**
+     * Rebuilds the fleet from the log in the given directory (if any), and logs all further changes of the fleet
+     *
+     * @param directory the directory of the log
+     * @param fleet     an empty fleet
+     * @return the log of the fleet
+     * @throws IOException if the log cannot be read or written
+     */
+    public static TrainEventLog open(Path directory, Fleet fleet) throws IOException {
+        return open(directory, fleet, DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * Rebuilds the fleet from the log in the given directory (if any), and logs all further changes of the fleet
+     *
+     * @param directory    the directory of the log
+     * @param fleet        an empty fleet
+     * @param syncInterval the number of events after which the log is forced to disk
+     * @return the log of the fleet
+     * @throws IOException if the log cannot be read or written
+     */
+    public static TrainEventLog open(Path directory, Fleet fleet, int syncInterval) throws IOException {
+        return open(directory, fleet, syncInterval, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Rebuilds the fleet from the log in the given directory (if any), and logs all further changes of the fleet
+     *
+     * @param directory          the directory of the log
+     * @param fleet              an empty fleet
+     * @param syncInterval       the number of events after which the log is forced to disk
+     * @param checkpointInterval the number of events after which a checkpoint is taken in the background,
+     *                           or 0 to take checkpoints only by {@link #checkpoint()}
+     * @return the log of the fleet
+     * @throws IOException if the log cannot be read or written
+     */
+    public static TrainEventLog open(Path directory, Fleet fleet, int syncInterval, long checkpointInterval)
+            throws IOException {
+        if (checkpointInterval < 0) throw new IllegalArgumentException("The checkpoint interval cannot be negative");
+        if (fleet.size() > 0) throw new IllegalArgumentException("The fleet must be empty to be rebuilt from a log");
+
+        Files.createDirectories(directory);
+        long snapshotSequence = latestSnapshot(directory);
+
+        if (snapshotSequence >= 0) {
+            for (Train train : FleetFile.readTrains(snapshotPath(directory, snapshotSequence))) {
+                fleet.register(train);
+            }
+        } else {
+            snapshotSequence = 0;
+        }
+
+        TrainEventLog log = new TrainEventLog(directory, fleet, syncInterval, checkpointInterval,
+                snapshotSequence, snapshotSequence);
+        Path logPath = logPath(directory, snapshotSequence);
+        long end = Files.exists(logPath) ? log.replay(logPath) : 0;
+
+        log.openLog(logPath, end);
+        log.deleteFormerFiles();
+        fleet.addListener(log);
+        return log;
+    }
+
+    /**
+     * @return the number of events since the fleet was created
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Appends the event to the log
+     *
+     * @param event the change that has been made
+     * @throws UncheckedIOException if the event cannot be written; the change has been made nevertheless
+     */
+    @Override
+    public synchronized void handle(TrainEvent event) {
+        try {
+            payload.reset();
+            write(payloadOutput, event);
+
+            crc.reset();
+            crc.update(payload.bytes(), 0, payload.size());
+
+            output.writeInt(payload.size());
+            output.writeInt((int) crc.getValue());
+            output.write(payload.bytes(), 0, payload.size());
+            sequence++;
+
+            if (++unsynced >= syncInterval) sync();
+            if (checkpointInterval > 0 && sequence - snapshotSequence >= checkpointInterval) startCheckpoint();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Forces all events that have been logged so far to disk
+     *
+     * @throws IOException if the log cannot be written
+     */
+    public synchronized void sync() throws IOException {
+        output.flush();
+        channel.force(false);
+        unsynced = 0;
+    }
+
+    /**
+     * Writes a snapshot of the fleet and starts a new log file, after which the former snapshot and log are deleted
+     * No other thread can change the fleet in the meantime.
+     *
+     * @throws IOException if the snapshot or the new log cannot be written
+     */
+    public void checkpoint() throws IOException {
+        try {
+            fleet.readAll(trains -> {
+                try {
+                    writeSnapshot(trains);
+                    return null;
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    /**
+     * Syncs and closes the log, which no longer logs the changes of the fleet.
+     * A background checkpoint that has not written its snapshot yet is abandoned.
+     *
+     * @throws IOException if the log cannot be written, or if the latest background checkpoint has failed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+
+        closed = true;
+        fleet.removeListener(this);
+        sync();
+        output.close();
+        if (checkpointFailure != null) throw checkpointFailure;
+    }
+
+    /**
+     * Starts a checkpoint in a background thread, unless one is pending or the previous one has failed
+     */
+    private void startCheckpoint() {
+        if (checkpointPending || checkpointFailure != null) return;
+
+        checkpointPending = true;
+        Thread thread = new Thread(() -> {
+            IOException failure = null;
+            try {
+                checkpoint();
+            } catch (IOException exception) {
+                failure = exception;
+            }
+            synchronized (this) {
+                checkpointFailure = failure;
+                checkpointPending = false;
+            }
+        }, "fleet-checkpoint");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private synchronized void writeSnapshot(List<Train> trains) throws IOException {
+        if (closed || sequence == snapshotSequence) return;
+
+        sync();
+
+        Path snapshot = snapshotPath(directory, sequence);
+        Path temporary = directory.resolve(snapshot.getFileName() + ".tmp");
+        FleetFile.write(temporary, trains);
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            file.force(true);
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        output.close();
+        snapshotSequence = sequence;
+        openLog(logPath(directory, sequence), 0);
+        deleteFormerFiles();
+    }
+
+    /**
+     * Opens a log file for appending after the given end, writing its header if it has none yet
+     */
+    private void openLog(Path logPath, long end) throws IOException {
+        channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        if (end < HEADER_SIZE) {
+            channel.truncate(0);
+            channel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip());
+            channel.force(false);
+        } else {
+            channel.truncate(end);
+            channel.position(end);
+        }
+
+        output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        unsynced = 0;
+    }
+
+    /**
+     * Deletes all snapshots and log files except the latest ones
+     */
+    private void deleteFormerFiles() throws IOException {
+        Path snapshot = snapshotPath(directory, snapshotSequence);
+        Path log = logPath(directory, snapshotSequence);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "{snapshot-*.fleet*,events-*.log}")) {
+            for (Path file : files) {
+                if (!file.equals(snapshot) && !file.equals(log)) Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Applies all complete events of the log file to the fleet
+     *
+     * @return the position after the last complete event
+     */
+    private long replay(Path logPath) throws IOException {
+        try (FileChannel file = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            if (file.size() > Integer.MAX_VALUE) throw new IOException("Log file " + logPath + " is too large to be mapped at once");
+
+            ByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            if (buffer.remaining() < HEADER_SIZE) return 0;
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) throw new IOException(logPath + " is not a train event log");
+
+            int end = buffer.position();
+
+            while (buffer.remaining() >= 2 * Integer.BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) break;
+
+                ByteBuffer event = buffer.slice().limit(length);
+                crc.reset();
+                crc.update(event.duplicate());
+                if ((int) crc.getValue() != checksum) break;
+
+                try {
+                    apply(read(event));
+                } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException exception) {
+                    throw new IOException("Log file " + logPath + " has a corrupt event after event " + sequence, exception);
+                }
+
+                buffer.position(buffer.position() + length);
+                end = buffer.position();
+                sequence++;
+            }
+
+            // anything after the last complete event is a torn event
+            return end;
+        }
+    }
+
+    /**
+     * Makes the change of a logged event to the fleet again
+     */
+    private void apply(TrainEvent event) throws IOException {
+        Train train = fleet.getTrain(event.getTrainId());
+        Train otherTrain = event.getOtherTrainId() < 0 ? null : fleet.getTrain(event.getOtherTrainId());
+        boolean applied = true;
+
+        switch (event.getType()) {
+            case REGISTER:
+                applied = fleet.register(event.getTrain()) == event.getTrainId();
+                break;
+            case STATE:
+                train.setFirstWagon(event.getTrain().getFirstWagon());
+                break;
+            case ATTACH:
+                applied = fleet.attachToRear(train, sequenceOf(event, otherTrain));
+                break;
+            case INSERT:
+                applied = fleet.insertAtPosition(train, event.getPosition(), sequenceOf(event, otherTrain));
+                break;
+            case MOVE:
+                applied = fleet.moveOneWagon(train, event.getWagonId(), otherTrain);
+                break;
+            case SPLIT:
+                applied = fleet.splitAtPosition(train, event.getPosition(), otherTrain);
+                break;
+            default:
+                fleet.reverse(train);
+                break;
+        }
+
+        if (!applied) throw new IOException("Event " + (sequence + 1) + " (" + event + ") cannot be replayed");
+    }
+
+    /**
+     * @return the attached sequence of wagons of the event, from its former train or as new wagons
+     */
+    private static Wagon sequenceOf(TrainEvent event, Train formerTrain) {
+        if (formerTrain != null) return formerTrain.findWagonAtPosition(event.getOtherPosition());
+
+        return Wagon.sequenceOf(event.isFreight(), event.getWagonIds(), event.getCapacities(), event.getWagonIds().length);
+    }
+
+    private static void write(DataOutputStream output, TrainEvent event) throws IOException {
+        output.writeByte(event.getType().ordinal());
+        output.writeInt(event.getTrainId());
+
+        switch (event.getType()) {
+            case REGISTER:
+            case STATE:
+                FleetFile.writeTrain(output, event.getTrain());
+                break;
+            case ATTACH:
+            case INSERT:
+                output.writeInt(event.getPosition());
+                output.writeInt(event.getOtherTrainId());
+
+                if (event.getOtherTrainId() >= 0) {
+                    output.writeInt(event.getOtherPosition());
+                } else {
+                    output.writeBoolean(event.isFreight());
+                    output.writeInt(event.getWagonIds().length);
+                    for (int wagonId : event.getWagonIds()) output.writeInt(wagonId);
+                    for (int capacity : event.getCapacities()) output.writeInt(capacity);
+                }
+                break;
+            case MOVE:
+                output.writeInt(event.getWagonId());
+                output.writeInt(event.getOtherTrainId());
+                break;
+            case SPLIT:
+                output.writeInt(event.getPosition());
+                output.writeInt(event.getOtherTrainId());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static TrainEvent read(ByteBuffer buffer) throws IOException {
+        TrainEvent.Type type = TYPES[buffer.get()];
+        int trainId = buffer.getInt();
+
+        switch (type) {
+            case REGISTER:
+                return TrainEvent.registered(trainId, FleetFile.readTrain(buffer, FleetFile::toTrain));
+            case STATE:
+                return TrainEvent.reconfigured(trainId, FleetFile.readTrain(buffer, FleetFile::toTrain));
+            case ATTACH:
+            case INSERT:
+                int position = buffer.getInt();
+                int formerTrainId = buffer.getInt();
+
+                if (formerTrainId >= 0) {
+                    return TrainEvent.attached(type, trainId, position, formerTrainId, buffer.getInt());
+                }
+
+                boolean freight = buffer.get() != 0;
+                int[] wagonIds = new int[buffer.getInt()];
+                int[] capacities = new int[wagonIds.length];
+                buffer.asIntBuffer().get(wagonIds).get(capacities);
+                return TrainEvent.attached(type, trainId, position, freight, wagonIds, capacities);
+            case MOVE:
+                return TrainEvent.moved(trainId, buffer.getInt(), buffer.getInt());
+            case SPLIT:
+                return TrainEvent.split(trainId, buffer.getInt(), buffer.getInt());
+            default:
+                return TrainEvent.reversed(trainId);
+        }
+    }
+
+    /**
+     * @return the sequence number of the latest snapshot in the directory, or -1 if there is none
+     */
+    private static long latestSnapshot(Path directory) throws IOException {
+        long latest = -1;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "snapshot-*.fleet")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                latest = Math.max(latest, Long.parseLong(name.substring("snapshot-".length(), name.length() - ".fleet".length())));
+            }
+        }
+
+        return latest;
+    }
+
+    private static Path snapshotPath(Path directory, long sequence) {
+        return directory.resolve("snapshot-" + sequence + ".fleet");
+    }
+
+    private static Path logPath(Path directory, long sequence) {
+        return directory.resolve("events-" + sequence + ".log");
+    }
+
+    /**
+     * A reusable buffer for the encoding of a single event
+     */
+    private static class Payload extends ByteArrayOutputStream {
+        private byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package models;
+
+/**
+ * An immutable composition of a train, for exploring alternative compositions without changing any Train.
+ * The wagons are kept as their ids and capacities in a persistent balanced tree (AVL) in the order of the train,
+ * so that every operation creates a new snapshot in O(log n) time, which shares all unchanged parts
+ * with the snapshot that it was derived from.
+ * Rejected operations return null, where the corresponding methods of {@link Train} return false.
+ * A snapshot does not verify that wagon ids are unique; its wagons are copied from trains that already ensure that.
+ */
+public class TrainSnapshot {
+    private final Locomotive engine;
+    private final String origin;
+    private final String destination;
+    private final boolean freight;      // whether the wagons are freight wagons (or passenger wagons)
+    private final Node root;            // the wagons of the snapshot, or null if it has no wagons
+    // representation-invariant
+    //      the wagon at position p (starting at 1) is the p-th node of root in in-order
+    //      the heights of the subtrees of every node differ by at most one
+    //      freight is false if root is null
+
+    private TrainSnapshot(Locomotive engine, String origin, String destination, boolean freight, Node root) {
+        this.engine = engine;
+        this.origin = origin;
+        this.destination = destination;
+        this.freight = root != null && freight;
+        this.root = root;
+    }
+
+    /**
+     * Creates a snapshot without wagons
+     *
+     * @param engine      the locomotive of the snapshot
+     * @param origin      the origin of the snapshot
+     * @param destination the destination of the snapshot
+     */
+    public TrainSnapshot(Locomotive engine, String origin, String destination) {
+        this(engine, origin, destination, false, null);
+    }
+
+    /**
+     * Creates a snapshot of the current composition of a train (use {@link Train#snapshot()} to reuse snapshots)
+     *
+     * @param train the train
+     * @return a snapshot with the locomotive, route and wagons of the train
+     */
+    static TrainSnapshot of(Train train) {
+        int[] ids = new int[train.getNumberOfWagons()];
+        int[] capacities = new int[ids.length];
+        int index = 0;
+
+        for (Wagon wagon : train) {
+            ids[index] = wagon.getId();
+            capacities[index++] = capacityOf(wagon);
+        }
+
+        return new TrainSnapshot(train.getEngine(), train.getOrigin(), train.getDestination(),
+                train.isFreightTrain(), build(ids, capacities, 0, ids.length));
+    }
+
+    /**
+     * Creates a train with a linked sequence of new Wagon objects with the same ids and capacities as this snapshot
+     *
+     * @return a train with the composition of this snapshot
+     */
+    public Train toTrain() {
+        Train train = new Train(engine, origin, destination);
+        int[] ids = new int[getNumberOfWagons()];
+        int[] capacities = new int[ids.length];
+        collect(root, ids, capacities, 0);
+
+        train.setFirstWagon(Wagon.sequenceOf(freight, ids, capacities, ids.length));
+        return train;
+    }
+
+    public boolean hasWagons() {
+        return root != null;
+    }
+
+    public boolean isPassengerTrain() {
+        return hasWagons() && !freight;
+    }
+
+    public boolean isFreightTrain() {
+        return hasWagons() && freight;
+    }
+
+    public Locomotive getEngine() {
+        return engine;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return the number of Wagons in the snapshot
+     */
+    public int getNumberOfWagons() {
+        return size(root);
+    }
+
+    /**
+     * @return the total number of seats on a passenger train
+     * (return 0 for a freight train)
+     */
+    public int getTotalNumberOfSeats() {
+        return isPassengerTrain() ? root.totalCapacity : 0;
+    }
+
+    /**
+     * @return the total maximum weight of a freight train
+     * (return 0 for a passenger train)
+     */
+    public int getTotalMaxWeight() {
+        return isFreightTrain() ? root.totalCapacity : 0;
+    }
+
+    /**
+     * @param position the position of a wagon (starting at 1 for the first wagon of the train)
+     * @return the id of the wagon at that position
+     * @throws IndexOutOfBoundsException if the position is not valid for this snapshot
+     */
+    public int getWagonId(int position) {
+        return nodeAt(position).wagonId;
+    }
+
+    /**
+     * @param position the position of a wagon (starting at 1 for the first wagon of the train)
+     * @return the number of seats or the maximum weight of the wagon at that position
+     * @throws IndexOutOfBoundsException if the position is not valid for this snapshot
+     */
+    public int getCapacity(int position) {
+        return nodeAt(position).capacity;
+    }
+
+    /**
+     * Determines if the given sequence of wagons can be attached to the snapshot
+     * Verfies of the type of wagons match the type of train (Passenger or Freight)
+     * Verfies that the capacity of the engine is sufficient to pull the additional wagons
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return whether attaching is possible
+     */
+    public boolean canAttach(Wagon wagon) {
+        if (wagon == null || !isCompatible(wagon instanceof FreightWagon)) return false;
+
+        int freeCapacity = engine.getMaxWagons() - getNumberOfWagons();
+
+        for (Wagon current = wagon; current != null; current = Train.nextInOrder(current)) {
+            if (--freeCapacity < 0) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Determines if the wagons of the given snapshot can be attached to this snapshot
+     *
+     * @param wagons a snapshot with the wagons to be attached
+     * @return whether attaching is possible
+     */
+    public boolean canAttach(TrainSnapshot wagons) {
+        return wagons.hasWagons() && isCompatible(wagons.freight) &&
+                getNumberOfWagons() + wagons.getNumberOfWagons() <= engine.getMaxWagons();
+    }
+
+    /**
+     * Attaches a copy of the given sequence of wagons to the rear of the snapshot
+     * The given wagons themselves are not changed.
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return the new snapshot
+     * (return null if the attachment cannot be made)
+     */
+    public TrainSnapshot attachToRear(Wagon wagon) {
+        return canAttach(wagon) ? insert(getNumberOfWagons(), wagon instanceof FreightWagon, sequence(wagon)) : null;
+    }
+
+    /**
+     * Attaches the wagons of the given snapshot to the rear of this snapshot
+     *
+     * @param wagons a snapshot with the wagons to be attached
+     * @return the new snapshot
+     * (return null if the attachment cannot be made)
+     */
+    public TrainSnapshot attachToRear(TrainSnapshot wagons) {
+        return canAttach(wagons) ? insert(getNumberOfWagons(), wagons.freight, wagons.root) : null;
+    }
+
+    /**
+     * Inserts a copy of the given sequence of wagons at the front of the snapshot
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return the new snapshot
+     * (return null if the insertion cannot be made)
+     */
+    public TrainSnapshot insertAtFront(Wagon wagon) {
+        return canAttach(wagon) ? insert(0, wagon instanceof FreightWagon, sequence(wagon)) : null;
+    }
+
+    /**
+     * Inserts a copy of the given sequence of wagons at/before the given wagon position in the snapshot
+     *
+     * @param position the position at which the sequence shall be inserted
+     * @param wagon    the first wagon of a sequence of wagons to be attached
+     * @return the new snapshot
+     * (return null if the insertion cannot be made, when the sequence is not compatible
+     * or the engine has insufficient capacity or the given position is not valid in this snapshot)
+     */
+    public TrainSnapshot insertAtPosition(int position, Wagon wagon) {
+        if (!isInsertPosition(position) || !canAttach(wagon)) return null;
+        return insert(position - 1, wagon instanceof FreightWagon, sequence(wagon));
+    }
+
+    /**
+     * Inserts the wagons of the given snapshot at/before the given wagon position in this snapshot
+     *
+     * @param position the position at which the wagons shall be inserted
+     * @param wagons   a snapshot with the wagons to be attached
+     * @return the new snapshot
+     * (return null if the insertion cannot be made)
+     */
+    public TrainSnapshot insertAtPosition(int position, TrainSnapshot wagons) {
+        if (!isInsertPosition(position) || !canAttach(wagons)) return null;
+        return insert(position - 1, wagons.freight, wagons.root);
+    }
+
+    /**
+     * Splits this snapshot before the given position and attaches the complete sequence
+     * of wagons from the given position to the rear of toTrain
+     *
+     * @param position the position you want to split at
+     * @param toTrain  the snapshot you want to attach all wagons beginning from position to
+     * @return the new snapshots of both trains
+     * (return null if the split or re-attachment cannot be made)
+     */
+    public Split splitAtPosition(int position, TrainSnapshot toTrain) {
+        if (position <= 0 || position > getNumberOfWagons()) return null;
+
+        Node[] parts = split(root, position - 1);
+        TrainSnapshot rear = withWagons(freight, parts[1]);
+
+        if (!toTrain.canAttach(rear)) return null;
+
+        return new Split(withWagons(freight, parts[0]), toTrain.attachToRear(rear));
+    }
+
+    private boolean isCompatible(boolean freight) {
+        return !hasWagons() || this.freight == freight;
+    }
+
+    private boolean isInsertPosition(int position) {
+        return position == 1 || (position > 0 && position <= getNumberOfWagons());
+    }
+
+    private TrainSnapshot insert(int index, boolean freight, Node wagons) {
+        Node[] parts = split(root, index);
+        return withWagons(freight, concat(concat(parts[0], wagons), parts[1]));
+    }
+
+    private TrainSnapshot withWagons(boolean freight, Node root) {
+        return new TrainSnapshot(engine, origin, destination, freight, root);
+    }
+
+    private Node nodeAt(int position) {
+        if (position <= 0 || position > getNumberOfWagons()) {
+            throw new IndexOutOfBoundsException("Position " + position + " is not valid for a train of " + getNumberOfWagons() + " wagons");
+        }
+
+        Node node = root;
+        int index = position - 1;
+
+        while (index != size(node.left)) {
+            if (index < size(node.left)) {
+                node = node.left;
+            } else {
+                index -= size(node.left) + 1;
+                node = node.right;
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * @return a balanced tree of the sequence of wagons starting at the given wagon, in the order of its train
+     */
+    private static Node sequence(Wagon wagon) {
+        int length = 0;
+        for (Wagon current = wagon; current != null; current = Train.nextInOrder(current)) length++;
+
+        int[] ids = new int[length];
+        int[] capacities = new int[length];
+        int index = 0;
+
+        for (Wagon current = wagon; current != null; current = Train.nextInOrder(current)) {
+            ids[index] = current.getId();
+            capacities[index++] = capacityOf(current);
+        }
+
+        return build(ids, capacities, 0, length);
+    }
+
+    private static int capacityOf(Wagon wagon) {
+        return wagon instanceof FreightWagon ? ((FreightWagon) wagon).getMaxWeight() : ((PassengerWagon) wagon).getNumberOfSeats();
+    }
+
+    /**
+     * @return a perfectly balanced tree of the wagons from index from (inclusive) until index to (exclusive)
+     */
+    private static Node build(int[] ids, int[] capacities, int from, int to) {
+        if (from >= to) return null;
+
+        int middle = (from + to) >>> 1;
+        return new Node(ids[middle], capacities[middle],
+                build(ids, capacities, from, middle), build(ids, capacities, middle + 1, to));
+    }
+
+    /**
+     * Fills the arrays with the ids and capacities of the nodes of the tree, in order, starting at the given index
+     *
+     * @return the index after the last wagon of the tree
+     */
+    private static int collect(Node node, int[] ids, int[] capacities, int index) {
+        if (node == null) return index;
+
+        index = collect(node.left, ids, capacities, index);
+        ids[index] = node.wagonId;
+        capacities[index] = node.capacity;
+        return collect(node.right, ids, capacities, index + 1);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * @return a copy of the given node with new subtrees
+     */
+    private static Node node(Node node, Node left, Node right) {
+        return new Node(node.wagonId, node.capacity, left, right);
+    }
+
+    /**
+     * @return a tree with the given node between the given subtrees, which differ by at most two in height,
+     * restoring the balance by a single or double rotation if needed
+     */
+    private static Node balance(Node node, Node left, Node right) {
+        int difference = height(left) - height(right);
+
+        if (difference > 1) {
+            if (height(left.left) < height(left.right)) {
+                left = node(left.right, node(left, left.left, left.right.left), left.right.right);
+            }
+            return node(left, left.left, node(node, left.right, right));
+        }
+
+        if (difference < -1) {
+            if (height(right.right) < height(right.left)) {
+                right = node(right.left, right.left.left, node(right, right.left.right, right.right));
+            }
+            return node(right, node(node, left, right.left), right.right);
+        }
+
+        return node(node, left, right);
+    }
+
+    /**
+     * @return a balanced tree of all wagons of left, then the wagon of middle, then all wagons of right
+     */
+    private static Node join(Node left, Node middle, Node right) {
+        if (height(left) > height(right) + 1) return balance(left, left.left, join(left.right, middle, right));
+        if (height(right) > height(left) + 1) return balance(right, join(left, middle, right.left), right.right);
+        return node(middle, left, right);
+    }
+
+    /**
+     * @return a balanced tree of all wagons of left followed by all wagons of right
+     */
+    private static Node concat(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+
+        Node[] parts = split(right, 1);
+        return join(left, parts[0], parts[1]);
+    }
+
+    /**
+     * @return the trees of the first count wagons and of the remaining wagons of the given tree
+     */
+    private static Node[] split(Node node, int count) {
+        if (node == null) return new Node[2];
+
+        Node[] parts;
+
+        if (count <= size(node.left)) {
+            parts = split(node.left, count);
+            parts[1] = join(parts[1], node, node.right);
+        } else {
+            parts = split(node.right, count - size(node.left) - 1);
+            parts[0] = join(node.left, node, parts[0]);
+        }
+
+        return parts;
+    }
+
+    /**
+     * makes a string of all information about the snapshot in the same format as {@link Train#toString()}
+     * @return a string containing all information about the snapshot
+     */
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder(engine.toString());
+
+        appendWagons(root, string);
+        string.append(" with ").append(getNumberOfWagons()).append(" wagons from ").append(origin).append(" to ").append(destination);
+
+        if (isFreightTrain()) {
+            string.append("\nTotal maximum weight: ").append(getTotalMaxWeight());
+        }
+
+        if (isPassengerTrain()) {
+            string.append("\nTotal number of seats: ").append(getTotalNumberOfSeats());
+        }
+
+        return string.toString();
+    }
+
+    private static void appendWagons(Node node, StringBuilder string) {
+        if (node == null) return;
+
+        appendWagons(node.left, string);
+        string.append("[Wagon-").append(node.wagonId).append(']');
+        appendWagons(node.right, string);
+    }
+
+    /**
+     * The outcome of splitting a snapshot: the new snapshots of the train that was split and of the receiving train
+     */
+    public static class Split {
+        private final TrainSnapshot fromTrain;
+        private final TrainSnapshot toTrain;
+
+        private Split(TrainSnapshot fromTrain, TrainSnapshot toTrain) {
+            this.fromTrain = fromTrain;
+            this.toTrain = toTrain;
+        }
+
+        public TrainSnapshot getFromTrain() {
+            return fromTrain;
+        }
+
+        public TrainSnapshot getToTrain() {
+            return toTrain;
+        }
+    }
+
+    /**
+     * A wagon of a snapshot, as the root of a subtree with the number of wagons and the total capacity of that subtree
+     */
+    private static class Node {
+        private final int wagonId;
+        private final int capacity;
+        private final Node left;
+        private final Node right;
+        private final int height;
+        private final int size;
+        private final int totalCapacity;
+
+        private Node(int wagonId, int capacity, Node left, Node right) {
+            this.wagonId = wagonId;
+            this.capacity = capacity;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+            this.totalCapacity = capacity + (left == null ? 0 : left.totalCapacity) + (right == null ? 0 : right.totalCapacity);
+        }
+    }
+}
@@ -7,6 +7,8 @@ public abstract class Wagon {
     protected int id;               // some unique ID of a Wagon
     private Wagon nextWagon;        // another wagon that is appended at the tail of this wagon
     private Wagon previousWagon;    // another wagon that is prepended at the front of this wagon
+    private volatile Train train;   // the train that this wagon is part of, as maintained by that Train
+    private boolean pooled;         // whether this wagon has been released to a WagonPool and not handed out again
 
     public Wagon(int wagonId) {
         this.id = wagonId;
@@ -24,6 +26,74 @@ public abstract class Wagon {
         return previousWagon;
     }
 
+    /**
+     * @return the train that currently holds this wagon
+     * or <code>null</code> if the wagon is not part of any train.
+     */
+    Train getTrain() {
+        return train;
+    }
+
+    void setTrain(Train train) {
+        this.train = train;
+    }
+
+    boolean isPooled() {
+        return pooled;
+    }
+
+    void setPooled() {
+        this.pooled = true;
+    }
+
+    /**
+     * Creates a new passenger or freight wagon
+     *
+     * @param freight  whether to create a freight wagon (or a passenger wagon)
+     * @param wagonId  the id of the wagon
+     * @param capacity the maximum weight of a freight wagon, or the number of seats of a passenger wagon
+     * @return the new wagon
+     */
+    static Wagon newWagon(boolean freight, int wagonId, int capacity) {
+        return freight ? new FreightWagon(wagonId, capacity) : new PassengerWagon(wagonId, capacity);
+    }
+
+    /**
+     * Creates a linked sequence of new passenger or freight wagons
+     *
+     * @param freight    whether to create freight wagons (or passenger wagons)
+     * @param wagonIds   the ids of the wagons, in the order of the sequence
+     * @param capacities the maximum weights or numbers of seats of the wagons, in the same order
+     * @param count      the number of wagons, taken from the start of both arrays
+     * @return the first wagon of the sequence, or null if count is 0
+     */
+    static Wagon sequenceOf(boolean freight, int[] wagonIds, int[] capacities, int count) {
+        Wagon first = null, last = null;
+
+        for (int index = 0; index < count; index++) {
+            Wagon wagon = newWagon(freight, wagonIds[index], capacities[index]);
+
+            if (first == null) {
+                first = wagon;
+            } else {
+                last.attachTail(wagon);
+            }
+            last = wagon;
+        }
+
+        return first;
+    }
+
+    /**
+     * Gives a detached wagon a new identity, so that it can be reused by a {@link WagonPool}
+     *
+     * @param wagonId the new id of the wagon
+     */
+    void reset(int wagonId) {
+        this.id = wagonId;
+        this.pooled = false;
+    }
+
     /**
      * @return whether this wagon has a wagon appended at the tail
      */
@@ -163,24 +233,24 @@ public abstract class Wagon {
      * @return the new start Wagon of the reversed sequence (with is the former last Wagon of the original sequence)
      */
     public Wagon reverseSequence() {
-        Wagon lastWagon = getLastWagonAttached();
+        Wagon front = detachFront();
+        Wagon reversedHead = null;
         Wagon currWagon = this;
-        int tailLength = this.getTailLength();
-
-        for (int i = 0; i < tailLength; i++) {
-            Wagon nextWagon = currWagon.getNextWagon();
-            currWagon.removeFromSequence();
-            Wagon tail = lastWagon.detachTail();
-            lastWagon.attachTail(currWagon);
-
-            if (tail != null) {
-                currWagon.attachTail(tail);
-            }
 
+        // swap the links of every wagon in a single pass
+        while (currWagon != null) {
+            Wagon nextWagon = currWagon.nextWagon;
+            currWagon.nextWagon = reversedHead;
+            currWagon.previousWagon = nextWagon;
+            reversedHead = currWagon;
             currWagon = nextWagon;
         }
 
-        return lastWagon;
+        if (front != null) {
+            front.attachTail(reversedHead);
+        }
+
+        return reversedHead;
     }
 
     /**
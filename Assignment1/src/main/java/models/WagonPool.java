@@ -0,0 +1,105 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * A factory of wagons that reuses the wagons that have been released to it, instead of creating new ones.
+ * A released wagon shall not be used anymore by its former owner, because it will be handed out again
+ * with a new id and capacity. A pool is not thread-safe; give every thread its own pool.
+ */
+public class WagonPool {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private PassengerWagon[] passengerWagons = new PassengerWagon[INITIAL_CAPACITY];
+    private int numberOfPassengerWagons;
+    private FreightWagon[] freightWagons = new FreightWagon[INITIAL_CAPACITY];
+    private int numberOfFreightWagons;
+    // representation-invariant
+    //      the first numberOfPassengerWagons and numberOfFreightWagons elements are the available wagons,
+    //      which are not attached to any other wagon and not part of any train
+
+    /**
+     * @param wagonId       the id of the new wagon
+     * @param numberOfSeats the number of seats of the new wagon
+     * @return a released passenger wagon with the given id and seats, or a new one if none is available
+     */
+    public PassengerWagon newPassengerWagon(int wagonId, int numberOfSeats) {
+        if (numberOfPassengerWagons == 0) return new PassengerWagon(wagonId, numberOfSeats);
+
+        PassengerWagon wagon = passengerWagons[--numberOfPassengerWagons];
+        passengerWagons[numberOfPassengerWagons] = null;
+        wagon.reset(wagonId, numberOfSeats);
+        return wagon;
+    }
+
+    /**
+     * @param wagonId   the id of the new wagon
+     * @param maxWeight the maximum weight of the new wagon
+     * @return a released freight wagon with the given id and maximum weight, or a new one if none is available
+     */
+    public FreightWagon newFreightWagon(int wagonId, int maxWeight) {
+        if (numberOfFreightWagons == 0) return new FreightWagon(wagonId, maxWeight);
+
+        FreightWagon wagon = freightWagons[--numberOfFreightWagons];
+        freightWagons[numberOfFreightWagons] = null;
+        wagon.reset(wagonId, maxWeight);
+        return wagon;
+    }
+
+    /**
+     * Returns the given wagon and all wagons attached to its tail to the pool
+     * The sequence is first detached from the wagon in front of it, if any.
+     *
+     * @param wagon the first wagon of the sequence to be released
+     * @throws IllegalArgumentException if the wagon is part of a train, or if any wagon has been released already
+     */
+    public void release(Wagon wagon) {
+        if (wagon.getTrain() != null) {
+            throw new IllegalArgumentException("Wagon " + wagon + " cannot be released while it is part of a train");
+        }
+        // a wagon that is released twice would be handed out twice, so nothing is released then
+        for (Wagon tail = wagon; tail != null; tail = tail.getNextWagon()) {
+            if (tail.isPooled()) throw new IllegalArgumentException("Wagon " + tail + " has been released already");
+        }
+
+        wagon.detachFront();
+
+        while (wagon != null) {
+            Wagon next = wagon.detachTail();
+            wagon.setPooled();
+
+            if (wagon instanceof FreightWagon) {
+                if (numberOfFreightWagons == freightWagons.length) freightWagons = Arrays.copyOf(freightWagons, 2 * numberOfFreightWagons);
+                freightWagons[numberOfFreightWagons++] = (FreightWagon) wagon;
+            } else {
+                if (numberOfPassengerWagons == passengerWagons.length) passengerWagons = Arrays.copyOf(passengerWagons, 2 * numberOfPassengerWagons);
+                passengerWagons[numberOfPassengerWagons++] = (PassengerWagon) wagon;
+            }
+
+            wagon = next;
+        }
+    }
+
+    /**
+     * Removes all wagons from the train and returns them to the pool
+     *
+     * @param train the train to be emptied
+     */
+    public void release(Train train) {
+        // the links have to follow the train to release the whole sequence from its first wagon
+        train.normalize();
+        Wagon first = train.getFirstWagon();
+
+        if (first != null) {
+            train.setFirstWagon(null);
+            release(first);
+        }
+    }
+
+    /**
+     * @return the number of wagons that are available for reuse
+     */
+    public int size() {
+        return numberOfPassengerWagons + numberOfFreightWagons;
+    }
+}
@@ -0,0 +1,132 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class CompactTrainTest {
+    Train passengerTrain;
+    CompactTrain compactPassengerTrain, compactTrainWithoutWagons, compactFreightTrain;
+    PassengerWagon passengerWagon1, passengerWagon2;
+
+    @BeforeEach
+    private void setup() {
+        passengerTrain = new Train(new Locomotive(24531, 7), "Amsterdam", "Paris");
+        passengerTrain.attachToRear(new PassengerWagon(8001, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8002, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8003, 18));
+        passengerTrain.attachToRear(new PassengerWagon(8004, 44));
+        passengerTrain.attachToRear(new PassengerWagon(8005, 44));
+        passengerTrain.attachToRear(new PassengerWagon(8006, 44));
+        passengerTrain.attachToRear(new PassengerWagon(8007, 40));
+        compactPassengerTrain = CompactTrain.fromTrain(passengerTrain);
+
+        compactTrainWithoutWagons = new CompactTrain(new Locomotive(29123, 7), "Amsterdam", "London");
+        compactFreightTrain = new CompactTrain(new Locomotive(63427, 50), "Amsterdam", "Berlin");
+        compactFreightTrain.attachToRear(new FreightWagon(9001, 50000));
+
+        passengerWagon1 = new PassengerWagon(8011, 50);
+        passengerWagon2 = new PassengerWagon(8012, 50);
+        passengerWagon1.attachTail(passengerWagon2);
+    }
+
+    @Test
+    public void T01_ConversionFromTrainKeepsAllProperties() {
+        assertEquals(7, compactPassengerTrain.getNumberOfWagons());
+        assertEquals(254, compactPassengerTrain.getTotalNumberOfSeats());
+        assertEquals(0, compactPassengerTrain.getTotalMaxWeight());
+        assertTrue(compactPassengerTrain.isPassengerTrain());
+        assertEquals(passengerTrain.toString(), compactPassengerTrain.toString());
+        assertEquals(50000, compactFreightTrain.getTotalMaxWeight());
+    }
+
+    @Test
+    public void T02_ConversionToTrainCreatesALinkedSequence() {
+        Train train = compactPassengerTrain.toTrain();
+
+        assertEquals(passengerTrain.toString(), train.toString());
+        assertEquals(8007, train.getLastWagonAttached().getId());
+        assertNotSame(passengerTrain.getFirstWagon(), train.getFirstWagon());
+        assertEquals(40, ((PassengerWagon) train.findWagonById(8007)).getNumberOfSeats());
+    }
+
+    @Test
+    public void T03_findByPositionAndById() {
+        assertEquals(8001, compactPassengerTrain.getWagonId(1));
+        assertEquals(18, compactPassengerTrain.getCapacity(3));
+        assertEquals(8007, compactPassengerTrain.findWagonAtPosition(7).getId());
+        assertNull(compactPassengerTrain.findWagonAtPosition(8));
+        assertNull(compactPassengerTrain.findWagonAtPosition(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> compactPassengerTrain.getWagonId(8));
+        assertEquals(4, compactPassengerTrain.findPositionById(8004));
+        assertEquals(-1, compactPassengerTrain.findPositionById(8000));
+    }
+
+    @Test
+    public void T04_AttachChecksTypeCapacityAndDuplicates() {
+        assertFalse(compactPassengerTrain.attachToRear(passengerWagon1));
+        assertFalse(compactFreightTrain.attachToRear(passengerWagon1));
+        assertTrue(compactTrainWithoutWagons.insertAtPosition(1, passengerWagon1));
+        assertFalse(compactTrainWithoutWagons.attachToRear(passengerWagon2));
+        assertTrue(compactTrainWithoutWagons.insertAtFront(new PassengerWagon(8010, 10)));
+        assertTrue(compactTrainWithoutWagons.insertAtPosition(3, new PassengerWagon(8013, 10)));
+        assertFalse(compactTrainWithoutWagons.insertAtPosition(5, new PassengerWagon(8014, 10)));
+
+        assertEquals(4, compactTrainWithoutWagons.getNumberOfWagons());
+        assertEquals(120, compactTrainWithoutWagons.getTotalNumberOfSeats());
+        assertEquals(3, compactTrainWithoutWagons.findPositionById(8013));
+        assertEquals(8012, compactTrainWithoutWagons.getWagonId(4));
+        // the linked sequence itself is left untouched
+        assertSame(passengerWagon2, passengerWagon1.getNextWagon());
+    }
+
+    @Test
+    public void T05_SplitAndMoveBetweenCompactTrains() {
+        assertTrue(compactPassengerTrain.splitAtPosition(5, compactTrainWithoutWagons));
+        assertEquals(4, compactPassengerTrain.getNumberOfWagons());
+        assertEquals(3, compactTrainWithoutWagons.getNumberOfWagons());
+        assertEquals(128, compactTrainWithoutWagons.getTotalNumberOfSeats());
+
+        assertFalse(compactTrainWithoutWagons.moveOneWagon(8001, compactPassengerTrain));
+        assertFalse(compactTrainWithoutWagons.moveOneWagon(8006, compactFreightTrain));
+        assertTrue(compactTrainWithoutWagons.moveOneWagon(8006, compactPassengerTrain));
+        assertEquals(5, compactPassengerTrain.getNumberOfWagons());
+        assertEquals(8006, compactPassengerTrain.getWagonId(5));
+        assertEquals(8007, compactTrainWithoutWagons.getWagonId(2));
+        assertFalse(compactTrainWithoutWagons.containsWagon(8006));
+        assertFalse(compactPassengerTrain.splitAtPosition(6, compactTrainWithoutWagons));
+    }
+
+    @Test
+    public void T06_ReverseInPlace() {
+        compactPassengerTrain.reverse();
+        assertEquals(8007, compactPassengerTrain.getWagonId(1));
+        assertEquals(40, compactPassengerTrain.getCapacity(1));
+        assertEquals(8001, compactPassengerTrain.getWagonId(7));
+        assertEquals(7, compactPassengerTrain.findPositionById(8001));
+
+        compactTrainWithoutWagons.reverse();
+        assertEquals(0, compactTrainWithoutWagons.getNumberOfWagons());
+    }
+
+    @Test
+    public void T07_PositionsByIdFollowEveryShift() {
+        assertTrue(compactPassengerTrain.splitAtPosition(6, compactTrainWithoutWagons));
+        assertTrue(compactPassengerTrain.moveOneWagon(8002, compactTrainWithoutWagons));
+        assertTrue(compactPassengerTrain.insertAtPosition(3, passengerWagon1));
+        assertTrue(compactTrainWithoutWagons.moveOneWagon(8006, compactPassengerTrain));
+        compactPassengerTrain.reverse();
+        assertTrue(compactPassengerTrain.moveOneWagon(8003, compactTrainWithoutWagons));
+        assertTrue(compactPassengerTrain.insertAtFront(new PassengerWagon(8013, 50)));
+
+        assertEquals(7, compactPassengerTrain.getNumberOfWagons());
+        for (int position = 1; position <= 7; position++) {
+            assertEquals(position, compactPassengerTrain.findPositionById(compactPassengerTrain.getWagonId(position)));
+        }
+        for (int position = 1; position <= 3; position++) {
+            assertEquals(position, compactTrainWithoutWagons.findPositionById(compactTrainWithoutWagons.getWagonId(position)));
+        }
+        assertEquals(-1, compactPassengerTrain.findPositionById(8002));
+    }
+}
@@ -0,0 +1,163 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class ConsistPlannerTest {
+    List<Locomotive> locomotives;
+    List<Wagon> wagons;
+
+    @BeforeEach
+    private void setup() {
+        locomotives = new ArrayList<>();
+        wagons = new ArrayList<>();
+    }
+
+    @Test
+    public void T01_PlansOnePassengerAndOneFreightTrain() {
+        addLocomotives(5, 10, 6);
+        addWagons(7, 4);
+
+        List<Train> trains = ConsistPlanner.planTrains(locomotives, wagons, "Amsterdam", "Berlin");
+
+        assertEquals(2, trains.size());
+        assertTrue(trains.get(0).isPassengerTrain());
+        assertEquals(10, trains.get(0).getEngine().getMaxWagons());
+        assertEquals(7, trains.get(0).getNumberOfWagons());
+        assertTrue(trains.get(1).isFreightTrain());
+        assertEquals(4, trains.get(1).getNumberOfWagons());
+        assertEquals("Berlin", trains.get(1).getDestination());
+        assertValidPlan(trains, 11);
+    }
+
+    @Test
+    public void T02_DividesTheLocomotivesExactlyWhereGreedyFails() {
+        // (5, 5, 4) has enough capacity in total, but cannot be divided into groups for 7 and 6 wagons
+        addLocomotives(5, 5, 4, 3);
+        addWagons(7, 6);
+
+        List<Train> trains = ConsistPlanner.planTrains(locomotives, wagons, "Amsterdam", "Berlin");
+
+        assertEquals(4, trains.size());
+        assertValidPlan(trains, 13);
+    }
+
+    @Test
+    public void T03_ReturnsNullWhenTheLocomotivesAreInsufficient() {
+        addLocomotives(5, 5);
+        addWagons(6, 5);
+
+        assertNull(ConsistPlanner.planTrains(locomotives, wagons, "Amsterdam", "Berlin"));
+        assertNull(wagons.get(0).getTrain());
+    }
+
+    @Test
+    public void T04_PlansNoTrainsWithoutWagons() {
+        assertTrue(ConsistPlanner.planTrains(locomotives, wagons, "Amsterdam", "Berlin").isEmpty());
+
+        addLocomotives(5);
+        assertTrue(ConsistPlanner.planTrains(locomotives, wagons, "Amsterdam", "Berlin").isEmpty());
+    }
+
+    @Test
+    public void T05_RejectsWagonsOfTrainsAndDuplicateIds() {
+        addLocomotives(10);
+        addWagons(2, 0);
+
+        Train train = new Train(new Locomotive(1, 5), "Amsterdam", "Berlin");
+        train.attachToRear(wagons.get(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> ConsistPlanner.planTrains(locomotives, wagons, "Amsterdam", "Berlin"));
+
+        wagons.set(0, new PassengerWagon(wagons.get(1).getId(), 40));
+        assertThrows(IllegalArgumentException.class,
+                () -> ConsistPlanner.planTrains(locomotives, wagons, "Amsterdam", "Berlin"));
+    }
+
+    @Test
+    public void T06_UsesTheMinimalNumberOfLocomotives() {
+        Random random = new Random(2021);
+
+        for (int round = 0; round < 200; round++) {
+            setup();
+            int nLocomotives = 1 + random.nextInt(9);
+            for (int i = 0; i < nLocomotives; i++) addLocomotives(1 + random.nextInt(12));
+            int nPassengerWagons = random.nextInt(30), nFreightWagons = random.nextInt(30);
+            addWagons(nPassengerWagons, nFreightWagons);
+
+            List<Train> trains = ConsistPlanner.planTrains(locomotives, wagons, "Amsterdam", "Berlin");
+            int minimum = bruteForceMinimum(nPassengerWagons, nFreightWagons);
+
+            if (minimum < 0) {
+                assertNull(trains);
+            } else {
+                assertEquals(minimum, trains.size());
+                assertValidPlan(trains, nPassengerWagons + nFreightWagons);
+            }
+        }
+    }
+
+    @Test
+    public void T07_PlansALargePool() {
+        Random random = new Random(2021);
+        for (int i = 0; i < 5000; i++) addLocomotives(10 + random.nextInt(90));
+        addWagons(60000, 40000);
+
+        List<Train> trains = ConsistPlanner.planTrains(locomotives, wagons, "Amsterdam", "Berlin");
+
+        assertValidPlan(trains, 100000);
+    }
+
+    private void addLocomotives(int... maxWagons) {
+        for (int capacity : maxWagons) locomotives.add(new Locomotive(locomotives.size() + 1, capacity));
+    }
+
+    private void addWagons(int nPassengerWagons, int nFreightWagons) {
+        for (int i = 0; i < nPassengerWagons; i++) wagons.add(new PassengerWagon(10000 + wagons.size(), 40));
+        for (int i = 0; i < nFreightWagons; i++) wagons.add(new FreightWagon(10000 + wagons.size(), 20000));
+    }
+
+    private void assertValidPlan(List<Train> trains, int numberOfWagons) {
+        int total = 0;
+
+        for (Train train : trains) {
+            assertTrue(train.getNumberOfWagons() <= train.getEngine().getMaxWagons());
+            for (Wagon wagon : train) {
+                assertSame(train, wagon.getTrain());
+                assertEquals(train.isFreightTrain(), wagon instanceof FreightWagon);
+            }
+            total += train.getNumberOfWagons();
+        }
+
+        assertEquals(numberOfWagons, total);
+    }
+
+    /**
+     * @return the minimal number of locomotives, found by trying every division of them over
+     * passenger trains, freight trains and unused (or -1 if there is none)
+     */
+    private int bruteForceMinimum(int nPassengerWagons, int nFreightWagons) {
+        int minimum = -1, n = locomotives.size(), divisions = 1;
+        for (int i = 0; i < n; i++) divisions *= 3;
+
+        for (int division = 0; division < divisions; division++) {
+            int passengers = 0, freight = 0, used = 0;
+            for (int i = 0, d = division; i < n; i++, d /= 3) {
+                if (d % 3 == 1) passengers += locomotives.get(i).getMaxWagons();
+                if (d % 3 == 2) freight += locomotives.get(i).getMaxWagons();
+                if (d % 3 != 0) used++;
+            }
+            if (passengers >= nPassengerWagons && freight >= nFreightWagons && (minimum < 0 || used < minimum)) {
+                minimum = used;
+            }
+        }
+
+        return minimum;
+    }
+}
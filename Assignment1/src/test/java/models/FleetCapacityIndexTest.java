@@ -0,0 +1,195 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class FleetCapacityIndexTest {
+    private static final String[] CITIES = {"Amsterdam", "Paris", "Berlin", "Brussels"};
+
+    Fleet fleet;
+    List<Train> trains;
+    FleetCapacityIndex index;
+
+    @BeforeEach
+    private void setup() {
+        fleet = new Fleet();
+        trains = new ArrayList<>();
+
+        // passenger trains 0..3 from Amsterdam to Paris, freight trains 4..5 and an empty train 6 on the same route
+        for (int t = 0; t < 7; t++) {
+            Train train = new Train(new Locomotive(t, 10), "Amsterdam", "Paris");
+            for (int w = 0; w < (t < 6 ? 2 + t % 4 : 0); w++) {
+                train.attachToRear(t < 4 ? new PassengerWagon(10 * t + w, 50) : new FreightWagon(10 * t + w, 1000));
+            }
+            fleet.register(train);
+            trains.add(train);
+        }
+        index = new FleetCapacityIndex(fleet);
+    }
+
+    @AfterEach
+    private void closeIndex() {
+        index.close();
+    }
+
+    @Test
+    public void T01_FindsTrainsByRouteAndCapacity() {
+        // passenger trains have 2, 3, 4 and 5 wagons, so 8, 7, 6 and 5 free wagons
+        assertEquals(List.of(trains.get(3), trains.get(2), trains.get(1), trains.get(0), trains.get(6)),
+                index.findPassengerTrains("Amsterdam", "Paris", 0, 0));
+        assertEquals(List.of(trains.get(1), trains.get(0), trains.get(6)),
+                index.findPassengerTrains("Amsterdam", "Paris", 7, 0));
+        assertEquals(List.of(trains.get(3), trains.get(2)),
+                index.findPassengerTrains("Amsterdam", "Paris", 0, 200));
+        assertEquals(List.of(), index.findPassengerTrains("Amsterdam", "Paris", 8, 101));
+        assertEquals(List.of(), index.findPassengerTrains("Paris", "Amsterdam", 0, 0));
+
+        assertEquals(List.of(trains.get(5), trains.get(4)),
+                index.findFreightTrains("Amsterdam", "Paris", 7, 2000));
+        assertEquals(List.of(trains.get(5)), index.findFreightTrains("Amsterdam", "Paris", 0, 3000));
+        assertEquals(List.of(trains.get(6)), index.findFreightTrains("Amsterdam", "Paris", 9, 0));
+    }
+
+    @Test
+    public void T02_ChangesOfTheFleetAreIndexed() {
+        // the empty train becomes a passenger train, and train 0 loses all of its wagons
+        assertTrue(fleet.splitAtPosition(trains.get(0), 1, trains.get(6)));
+        assertEquals(List.of(trains.get(3), trains.get(2), trains.get(1), trains.get(6)),
+                index.findPassengerTrains("Amsterdam", "Paris", 0, 1));
+        assertEquals(List.of(trains.get(0)), index.findFreightTrains("Amsterdam", "Paris", 10, 0));
+
+        assertTrue(fleet.attachToRear(trains.get(5), new FreightWagon(99, 500)));
+        assertEquals(List.of(trains.get(5)), index.findFreightTrains("Amsterdam", "Paris", 0, 3500));
+
+        assertTrue(fleet.moveOneWagon(trains.get(3), 30, trains.get(0)));
+        assertEquals(List.of(trains.get(2), trains.get(3)), index.findPassengerTrains("Amsterdam", "Paris", 0, 200));
+
+        Train train = new Train(new Locomotive(7, 4), "Berlin", "Paris");
+        fleet.register(train);
+        assertEquals(List.of(train), index.findFreightTrains("Berlin", "Paris", 4, 0));
+
+        index.close();
+        fleet.attachToRear(train, new FreightWagon(100, 500));
+        assertEquals(List.of(train), index.findFreightTrains("Berlin", "Paris", 4, 0));
+    }
+
+    @Test
+    public void T03_ShuntingPlansAreIndexed() {
+        assertTrue(fleet.apply(trains.get(3), new ShuntingPlan()
+                .splitAtPosition(2, trains.get(2))
+                .moveOneWagon(30, trains.get(1))).isSuccessful());
+
+        // train 3 is left without wagons
+        assertEquals(List.of(trains.get(1), trains.get(0), trains.get(3), trains.get(6)),
+                index.findPassengerTrains("Amsterdam", "Paris", 5, 0));
+        assertEquals(List.of(trains.get(2)), index.findPassengerTrains("Amsterdam", "Paris", 0, 300));
+    }
+
+    @Test
+    public void T04_ConcurrentChangesAgreeWithAFullScan() throws Exception {
+        Fleet fleet = new Fleet();
+        List<Train> trains = new ArrayList<>();
+        Random random = new Random(4);
+
+        for (int t = 0; t < 400; t++) {
+            Train train = new Train(new Locomotive(t, 5 + random.nextInt(20)),
+                    CITIES[random.nextInt(2)], CITIES[2 + random.nextInt(2)]);
+            for (int w = 0; w < 5; w++) train.attachToRear(new PassengerWagon(5 * t + w, 1 + random.nextInt(100)));
+            fleet.register(train);
+            trains.add(train);
+        }
+        FleetCapacityIndex index = new FleetCapacityIndex(fleet);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            long seed = thread;
+            futures.add(executor.submit(() -> {
+                Random threadRandom = new Random(seed);
+                for (int i = 0; i < 20000; i++) {
+                    Train from = trains.get(threadRandom.nextInt(trains.size()));
+                    Train to = trains.get(threadRandom.nextInt(trains.size()));
+                    if (threadRandom.nextBoolean()) {
+                        fleet.moveOneWagon(from, threadRandom.nextInt(5 * trains.size()), to);
+                    } else {
+                        fleet.splitAtPosition(from, 1 + threadRandom.nextInt(5), to);
+                    }
+                    index.findPassengerTrains(from.getOrigin(), from.getDestination(), 3, 50);
+                }
+            }));
+        }
+        for (Future<?> future : futures) future.get();
+        executor.shutdown();
+
+        for (int query = 0; query < 200; query++) {
+            String origin = CITIES[random.nextInt(2)];
+            String destination = CITIES[2 + random.nextInt(2)];
+            int freeWagons = random.nextInt(15);
+            int minSeats = random.nextInt(300);
+
+            List<Train> expected = trains.stream()
+                    .filter(train -> train.getOrigin().equals(origin) && train.getDestination().equals(destination))
+                    .filter(train -> !train.isFreightTrain())
+                    .filter(train -> train.getEngine().getMaxWagons() - train.getNumberOfWagons() >= freeWagons)
+                    .filter(train -> train.getTotalNumberOfSeats() >= minSeats)
+                    .sorted(Comparator.comparingInt(fleet::getTrainId))
+                    .collect(Collectors.toList());
+            List<Train> found = index.findPassengerTrains(origin, destination, freeWagons, minSeats);
+            found.sort(Comparator.comparingInt(fleet::getTrainId));
+
+            assertEquals(expected, found);
+        }
+        index.close();
+    }
+
+    @Test
+    public void T05_QueriesOverManyTrainsAreFast() {
+        Fleet fleet = new Fleet();
+        Random random = new Random(5);
+
+        for (int t = 0; t < 100_000; t++) {
+            Train train = new Train(new Locomotive(t, 1 + random.nextInt(100)),
+                    CITIES[random.nextInt(CITIES.length)], CITIES[random.nextInt(CITIES.length)]);
+            train.attachToRear(new PassengerWagon(t, 1 + random.nextInt(100)));
+            fleet.register(train);
+        }
+        FleetCapacityIndex index = new FleetCapacityIndex(fleet);
+
+        int found = 0;
+        long start = System.nanoTime();
+        for (int query = 0; query < 1000; query++) {
+            found += index.findPassengerTrains("Amsterdam", "Paris", 95 + query % 5, 50).size();
+        }
+        long averageNanos = (System.nanoTime() - start) / 1000;
+
+        assertTrue(found > 0);
+        assertTrue(averageNanos < 1_000_000, "average query time " + averageNanos + " ns");
+        index.close();
+    }
+
+    @Test
+    public void T06_EmptyTrainsAreOrderedByFreeWagons() {
+        // an empty train with 6 free wagons ranks between the passenger trains with 5 and 7 free wagons,
+        // after passenger train 2 with as many free wagons but a lower id
+        Train train = new Train(new Locomotive(7, 6), "Amsterdam", "Paris");
+        fleet.register(train);
+
+        assertEquals(List.of(trains.get(3), trains.get(2), train, trains.get(1), trains.get(0), trains.get(6)),
+                index.findPassengerTrains("Amsterdam", "Paris", 0, 0));
+        assertEquals(List.of(trains.get(2), train, trains.get(1), trains.get(0), trains.get(6)),
+                index.findPassengerTrains("Amsterdam", "Paris", 6, 0));
+        assertEquals(List.of(train, trains.get(5), trains.get(4), trains.get(6)),
+                index.findFreightTrains("Amsterdam", "Paris", 0, 0));
+    }
+}
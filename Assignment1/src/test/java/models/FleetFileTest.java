@@ -0,0 +1,130 @@
+package models;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class FleetFileTest {
+    @TempDir
+    Path directory;
+
+    Path fleetPath;
+    Train passengerTrain, freightTrain, trainWithoutWagons;
+
+    @BeforeEach
+    private void setup() {
+        fleetPath = directory.resolve("fleet.bin");
+
+        passengerTrain = new Train(new Locomotive(24531, 7), "Amsterdam", "Paris");
+        passengerTrain.attachToRear(new PassengerWagon(8001, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8002, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8003, 18));
+        passengerTrain.attachToRear(new PassengerWagon(8004, 44));
+
+        freightTrain = new Train(new Locomotive(63427, 50), "Amsterdam", "Köln");
+        freightTrain.attachToRear(new FreightWagon(9001, 50000));
+        freightTrain.attachToRear(new FreightWagon(9002, 60000));
+
+        trainWithoutWagons = new Train(new Locomotive(29123, 7), "Amsterdam", "London");
+    }
+
+    @Test
+    public void T01_TrainsSurviveARoundTrip() throws IOException {
+        passengerTrain.reverse();
+        FleetFile.write(fleetPath, List.of(passengerTrain, freightTrain, trainWithoutWagons));
+
+        List<Train> trains = FleetFile.readTrains(fleetPath);
+
+        assertEquals(3, trains.size());
+        assertEquals(passengerTrain.toString(), trains.get(0).toString());
+        assertEquals(freightTrain.toString(), trains.get(1).toString());
+        assertEquals(trainWithoutWagons.toString(), trains.get(2).toString());
+        assertEquals(7, trains.get(0).getEngine().getMaxWagons());
+        assertEquals(126, trains.get(0).getTotalNumberOfSeats());
+        assertEquals(60000, ((FreightWagon) trains.get(1).findWagonById(9002)).getMaxWeight());
+        assertTrue(trains.get(1).isFreightTrain());
+    }
+
+    @Test
+    public void T02_TrainsCanBeLoadedAsCompactTrains() throws IOException {
+        FleetFile.write(fleetPath, List.of(passengerTrain, freightTrain, trainWithoutWagons));
+
+        List<CompactTrain> trains = FleetFile.readCompactTrains(fleetPath);
+
+        assertEquals(passengerTrain.toString(), trains.get(0).toString());
+        assertEquals(freightTrain.toString(), trains.get(1).toString());
+        assertEquals(trainWithoutWagons.toString(), trains.get(2).toString());
+        assertEquals(2, trains.get(1).findPositionById(9002));
+        assertTrue(trains.get(0).attachToRear(new PassengerWagon(8005, 44)));
+        assertFalse(trains.get(0).attachToRear(new PassengerWagon(8001, 44)));
+    }
+
+    @Test
+    public void T03_InvalidFilesAreRejected() throws IOException {
+        Files.write(fleetPath, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        assertThrows(IOException.class, () -> FleetFile.readTrains(fleetPath));
+
+        FleetFile.write(fleetPath, List.of(passengerTrain));
+        byte[] bytes = Files.readAllBytes(fleetPath);
+        Files.write(fleetPath, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> FleetFile.readCompactTrains(fleetPath));
+    }
+
+    @Test
+    public void T04_LargeFleetsAreLoadedQuickly() throws IOException {
+        Train train = new Train(new Locomotive(1, 1_000_000), "Amsterdam", "Paris");
+        for (int id = 1; id <= 1_000_000; id++) train.attachToRear(new FreightWagon(id, id % 1000));
+
+        FleetFile.write(fleetPath, List.of(train));
+        assertEquals(12 + 4 + 4 + 2 + 9 + 2 + 5 + 1 + 4 + 8_000_000, Files.size(fleetPath));
+
+        long start = System.nanoTime();
+        CompactTrain compactTrain = FleetFile.readCompactTrains(fleetPath).get(0);
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+
+        assertEquals(1_000_000, compactTrain.getNumberOfWagons());
+        assertEquals(train.getTotalMaxWeight(), compactTrain.getTotalMaxWeight());
+        assertEquals(777_777, compactTrain.getWagonId(777_777));
+    }
+
+    @Test
+    public void T05_CorruptCountsAndKindsAreRejected() throws IOException {
+        FleetFile.write(fleetPath, List.of(passengerTrain));
+        byte[] bytes = Files.readAllBytes(fleetPath);
+        // header, locomotive, "Amsterdam" and "Paris"
+        int kindOffset = 12 + 4 + 4 + 2 + 9 + 2 + 5;
+
+        ByteBuffer.wrap(bytes).putInt(8, -1);
+        Files.write(fleetPath, bytes);
+        assertThrows(IOException.class, () -> FleetFile.readTrains(fleetPath));
+
+        ByteBuffer.wrap(bytes).putInt(8, Integer.MAX_VALUE);
+        Files.write(fleetPath, bytes);
+        assertThrows(IOException.class, () -> FleetFile.readTrains(fleetPath));
+
+        ByteBuffer.wrap(bytes).putInt(8, 1).put(kindOffset, (byte) 7);
+        Files.write(fleetPath, bytes);
+        assertThrows(IOException.class, () -> FleetFile.readTrains(fleetPath));
+
+        ByteBuffer.wrap(bytes).put(kindOffset, (byte) 1).putInt(kindOffset + 1, Integer.MAX_VALUE);
+        Files.write(fleetPath, bytes);
+        assertThrows(IOException.class, () -> FleetFile.readCompactTrains(fleetPath));
+
+        ByteBuffer.wrap(bytes).putInt(kindOffset + 1, -4);
+        Files.write(fleetPath, bytes);
+        assertThrows(IOException.class, () -> FleetFile.readCompactTrains(fleetPath));
+
+        ByteBuffer.wrap(bytes).putInt(kindOffset + 1, 4);
+        Files.write(fleetPath, bytes);
+        assertEquals(passengerTrain.toString(), FleetFile.readTrains(fleetPath).get(0).toString());
+    }
+}
@@ -0,0 +1,140 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class FleetTest {
+    private static final int NUMBER_OF_TRAINS = 2000;
+    private static final int WAGONS_PER_TRAIN = 10;
+    private static final int NUMBER_OF_THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 50000;
+
+    Fleet fleet;
+    List<Train> trains;
+
+    @BeforeEach
+    private void setup() {
+        fleet = new Fleet();
+        trains = new ArrayList<>();
+
+        for (int t = 0; t < NUMBER_OF_TRAINS; t++) {
+            Train train = new Train(new Locomotive(t, 3 * WAGONS_PER_TRAIN), "Amsterdam", "Paris");
+            for (int w = 0; w < WAGONS_PER_TRAIN; w++) {
+                train.attachToRear(new PassengerWagon(t * WAGONS_PER_TRAIN + w, 1));
+            }
+            fleet.register(train);
+            trains.add(train);
+        }
+    }
+
+    @AfterEach
+    private void representationInvariant() {
+        // every wagon is in exactly one train, and that train knows it
+        boolean[] seen = new boolean[NUMBER_OF_TRAINS * WAGONS_PER_TRAIN];
+        int total = 0;
+
+        for (Train train : trains) {
+            int count = 0;
+            for (Wagon wagon : train) {
+                assertFalse(seen[wagon.getId()], "Wagon " + wagon + " is part of two trains");
+                seen[wagon.getId()] = true;
+                assertSame(train, wagon.getTrain());
+                assertSame(wagon, train.findWagonById(wagon.getId()));
+                assertTrue(!wagon.hasNextWagon() || wagon == wagon.getNextWagon().getPreviousWagon());
+                count++;
+            }
+            assertEquals(count, train.getNumberOfWagons());
+            assertEquals(count, train.getTotalNumberOfSeats());
+            total += count;
+        }
+
+        assertEquals(NUMBER_OF_TRAINS * WAGONS_PER_TRAIN, total);
+        assertEquals(NUMBER_OF_TRAINS * WAGONS_PER_TRAIN, fleet.getNumberOfWagons());
+    }
+
+    @Test
+    public void T01_TrainsAreRegisteredOnceWithAnId() {
+        Train train = trains.get(13);
+        int trainId = fleet.getTrainId(train);
+
+        assertEquals(trainId, fleet.register(train));
+        assertSame(train, fleet.getTrain(trainId));
+        assertEquals(NUMBER_OF_TRAINS, fleet.size());
+        assertEquals(-1, fleet.getTrainId(new Train(new Locomotive(1, 1), "Here", "There")));
+    }
+
+    @Test
+    public void T02_OperationsOnTrainsOutsideTheFleetAreRefused() {
+        Train stranger = new Train(new Locomotive(1, 1), "Here", "There");
+        assertThrows(IllegalArgumentException.class, () -> fleet.moveOneWagon(trains.get(0), 1, stranger));
+    }
+
+    @Test
+    public void T03_ConcurrentTransfersKeepEveryWagonInOneTrain() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+            results.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int succeeded = 0;
+
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    Train from = trains.get(random.nextInt(NUMBER_OF_TRAINS));
+                    Train to = trains.get(random.nextInt(NUMBER_OF_TRAINS));
+                    int position = 1 + random.nextInt(WAGONS_PER_TRAIN);
+
+                    switch (random.nextInt(5)) {
+                        case 0:
+                            if (fleet.splitAtPosition(from, position, to)) succeeded++;
+                            break;
+                        case 1:
+                            fleet.reverse(from);
+                            break;
+                        case 2:
+                            // take a wagon out of a train that is not locked by the caller
+                            Wagon wagon = fleet.read(from, train -> train.findWagonAtPosition(position));
+                            if (wagon != null && fleet.attachToRear(to, wagon)) succeeded++;
+                            break;
+                        default:
+                            Wagon moving = fleet.read(from, train -> train.findWagonAtPosition(position));
+                            if (moving != null && fleet.moveOneWagon(from, moving.getId(), to)) succeeded++;
+                    }
+                }
+
+                return succeeded;
+            }));
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "the transfers did not finish, possibly deadlocked");
+
+        int succeeded = 0;
+        for (Future<Integer> result : results) succeeded += result.get();
+        assertTrue(succeeded > 0);
+    }
+
+    @Test
+    public void T04_TheFleetIsWrittenOneTrainPerLine() throws IOException {
+        fleet.moveOneWagon(trains.get(0), 1, trains.get(1));
+        StringWriter writer = new StringWriter();
+        fleet.writeTo(writer);
+
+        String[] lines = writer.toString().split("\n");
+        assertEquals(2 * NUMBER_OF_TRAINS, lines.length);
+        assertEquals(trains.get(1).toString(), lines[2] + "\n" + lines[3]);
+        assertTrue(lines[2].endsWith("[Wagon-19][Wagon-1] with 11 wagons from Amsterdam to Paris"));
+    }
+}
@@ -0,0 +1,63 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class IntHashMapTest {
+    IntHashMap<String> map;
+
+    @BeforeEach
+    private void setup() {
+        map = new IntHashMap<>();
+    }
+
+    @Test
+    public void T01_AnEmptyMapFindsNothing() {
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+        assertFalse(map.containsKey(8001));
+        assertNull(map.remove(8001));
+    }
+
+    @Test
+    public void T02_PutReplacesAndRemoveForgets() {
+        assertNull(map.put(8001, "a"));
+        assertEquals("a", map.put(8001, "b"));
+        assertEquals(1, map.size());
+        assertEquals("b", map.get(8001));
+        assertEquals("b", map.remove(8001));
+        assertFalse(map.containsKey(8001));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void T03_NullValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    public void T04_RandomOperationsAgreeWithHashMap() {
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(2021);
+
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = -1000; key < 1000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class IntIntHashMapTest {
+    IntIntHashMap map;
+
+    @BeforeEach
+    private void setup() {
+        map = new IntIntHashMap();
+    }
+
+    @Test
+    public void T01_AnEmptyMapFindsNothing() {
+        assertTrue(map.isEmpty());
+        assertEquals(IntIntHashMap.NO_VALUE, map.get(0));
+        assertFalse(map.containsKey(8001));
+        assertEquals(IntIntHashMap.NO_VALUE, map.remove(8001));
+    }
+
+    @Test
+    public void T02_PutReplacesAndRemoveForgets() {
+        assertEquals(IntIntHashMap.NO_VALUE, map.put(8001, 0));
+        assertEquals(0, map.put(8001, 7));
+        assertEquals(1, map.size());
+        assertEquals(7, map.get(8001));
+        assertEquals(7, map.remove(8001));
+        assertFalse(map.containsKey(8001));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void T03_NegativeValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, -1));
+    }
+
+    @Test
+    public void T04_RandomOperationsAgreeWithHashMap() {
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(2021);
+
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.getOrDefault(key, IntIntHashMap.NO_VALUE), map.remove(key));
+                expected.remove(key);
+            } else {
+                assertEquals(expected.getOrDefault(key, IntIntHashMap.NO_VALUE), map.put(key, i));
+                expected.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = -1000; key < 1000; key++) {
+            assertEquals(expected.getOrDefault(key, IntIntHashMap.NO_VALUE), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class ShuntingPlanTest {
+    Train passengerTrain, trainWithoutWagons, smallTrain;
+    PassengerWagon passengerWagon1, passengerWagon2;
+
+    @BeforeEach
+    private void setup() {
+        passengerTrain = new Train(new Locomotive(24531, 8), "Amsterdam", "Paris");
+        for (int id = 8001; id <= 8007; id++) {
+            passengerTrain.attachToRear(new PassengerWagon(id, 10));
+        }
+        trainWithoutWagons = new Train(new Locomotive(29123, 7), "Amsterdam", "London");
+        smallTrain = new Train(new Locomotive(63427, 1), "Amsterdam", "Utrecht");
+
+        passengerWagon1 = new PassengerWagon(8011, 50);
+        passengerWagon2 = new PassengerWagon(8012, 50);
+        passengerWagon1.attachTail(passengerWagon2);
+    }
+
+    private String wagonIds(Train train) {
+        StringBuilder ids = new StringBuilder();
+        for (Wagon wagon : train) {
+            ids.append(wagon.getId()).append(' ');
+        }
+        return ids.toString().trim();
+    }
+
+    @Test
+    public void T01_AllOperationsOfAValidPlanAreApplied() {
+        ShuntingPlan.Report report = passengerTrain.apply(new ShuntingPlan()
+                .splitAtPosition(6, trainWithoutWagons)
+                .insertAtPosition(2, passengerWagon1)
+                .moveOneWagon(8003, trainWithoutWagons)
+                .insertAtPosition(6, new PassengerWagon(8021, 10)));
+
+        assertTrue(report.isSuccessful());
+        assertEquals(4, report.size());
+        assertEquals("8001 8011 8012 8002 8004 8021 8005", wagonIds(passengerTrain));
+        assertEquals("8006 8007 8003", wagonIds(trainWithoutWagons));
+        assertEquals(7, passengerTrain.getNumberOfWagons());
+        assertEquals(150, passengerTrain.getTotalNumberOfSeats());
+        assertEquals(8005, passengerTrain.getLastWagonAttached().getId());
+    }
+
+    @Test
+    public void T02_APlanExceedingCapacityIsRejectedUpFront() {
+        ShuntingPlan.Report report = passengerTrain.apply(new ShuntingPlan()
+                .moveOneWagon(8001, smallTrain)
+                .moveOneWagon(8002, smallTrain)
+                .moveOneWagon(8003, trainWithoutWagons));
+
+        assertFalse(report.isSuccessful());
+        assertEquals(ShuntingPlan.Status.SKIPPED, report.getStatus(0));
+        assertEquals(ShuntingPlan.Status.REJECTED, report.getStatus(1));
+        assertEquals(ShuntingPlan.Status.SKIPPED, report.getStatus(2));
+        assertEquals(7, passengerTrain.getNumberOfWagons());
+        assertFalse(smallTrain.hasWagons());
+    }
+
+    @Test
+    public void T03_AFailingOperationRollsBackThePlan() {
+        String before = wagonIds(passengerTrain);
+        ShuntingPlan.Report report = passengerTrain.apply(new ShuntingPlan()
+                .insertAtPosition(3, passengerWagon2)
+                .moveOneWagon(8005, trainWithoutWagons)
+                .splitAtPosition(2, trainWithoutWagons)
+                .moveOneWagon(8004, smallTrain));
+
+        assertFalse(report.isSuccessful());
+        assertEquals(ShuntingPlan.Status.ROLLED_BACK, report.getStatus(0));
+        assertEquals(ShuntingPlan.Status.ROLLED_BACK, report.getStatus(1));
+        assertEquals(ShuntingPlan.Status.ROLLED_BACK, report.getStatus(2));
+        assertEquals(ShuntingPlan.Status.REJECTED, report.getStatus(3));
+
+        assertEquals(before, wagonIds(passengerTrain));
+        assertEquals(70, passengerTrain.getTotalNumberOfSeats());
+        assertEquals(8007, passengerTrain.getLastWagonAttached().getId());
+        assertFalse(trainWithoutWagons.hasWagons());
+        assertSame(passengerWagon2, passengerWagon1.getNextWagon());
+        assertSame(passengerWagon1, passengerWagon2.getPreviousWagon());
+    }
+
+    @Test
+    public void T04_ARollBackReturnsInsertedWagonsToTheirFormerTrain() {
+        trainWithoutWagons.attachToRear(passengerWagon1);
+        ShuntingPlan.Report report = passengerTrain.apply(new ShuntingPlan()
+                .insertAtPosition(1, passengerWagon2)
+                .moveOneWagon(8099, smallTrain));
+
+        assertEquals(ShuntingPlan.Status.REJECTED, report.getStatus(1));
+        assertEquals("8011 8012", wagonIds(trainWithoutWagons));
+        assertEquals(8012, trainWithoutWagons.getLastWagonAttached().getId());
+        assertSame(trainWithoutWagons.findWagonById(8012), passengerWagon2);
+        assertNull(passengerTrain.findWagonById(8012));
+        assertEquals(7, passengerTrain.getNumberOfWagons());
+    }
+}
@@ -0,0 +1,104 @@
+package models;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the shunting operations of Train, on trains from 10 to 1,000,000 wagons.
+ * The time per operation should not grow with the size of the train, except for operations
+ * that inherently visit part of the train (insertAtPosition and splitAtPosition in the middle of the train).
+ * The shunting operations should not allocate at all: gc.alloc.rate.norm should report about 0 B/op.
+ * Run all benchmarks with their allocation rates by: mvn -P benchmark test -DskipTests
+ * or a selection of them by adding e.g. -Dbenchmark.include=TrainBenchmark.reverse
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TrainBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    int size;
+
+    Train train, spareTrain, scrapTrain;
+    WagonPool pool;
+    Wagon spareWagon;
+    int middle;
+    int nextId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        train = new Train(new Locomotive(1, Integer.MAX_VALUE), "Amsterdam", "Paris");
+        spareTrain = new Train(new Locomotive(2, Integer.MAX_VALUE), "Amsterdam", "London");
+
+        for (int id = 0; id < size; id++) {
+            train.attachToRear(new PassengerWagon(id, 50));
+        }
+
+        spareWagon = new PassengerWagon(size, 50);
+        spareTrain.attachToRear(spareWagon);
+        middle = size / 2 + 1;
+        pool = new WagonPool();
+        scrapTrain = new Train(new Locomotive(3, 1), "Amsterdam", "Amsterdam");
+    }
+
+    /**
+     * attaches a wagon to the rear of the train, and takes it back to the spare train
+     */
+    @Benchmark
+    public boolean attachToRear() {
+        return train.attachToRear(spareWagon) & spareTrain.attachToRear(spareWagon);
+    }
+
+    /**
+     * inserts a wagon in the middle of the train, and moves it back to the spare train
+     */
+    @Benchmark
+    public boolean insertAtPosition() {
+        return train.insertAtPosition(middle, spareWagon) & train.moveOneWagon(size, spareTrain);
+    }
+
+    @Benchmark
+    public Wagon findWagonById() {
+        nextId = nextId + 1 < size ? nextId + 1 : 0;
+        return train.findWagonById(nextId);
+    }
+
+    @Benchmark
+    public Wagon findWagonAtPosition() {
+        return train.findWagonAtPosition(middle);
+    }
+
+    /**
+     * splits the rear half of the train off to the spare train, and joins it to the train again
+     */
+    @Benchmark
+    public boolean splitAtPosition() {
+        int spareWagons = spareTrain.getNumberOfWagons();
+        return train.splitAtPosition(middle, spareTrain) & spareTrain.splitAtPosition(spareWagons + 1, train);
+    }
+
+    @Benchmark
+    public void reverse(Blackhole blackhole) {
+        train.reverse();
+        blackhole.consume(train.getLastWagonAttached());
+    }
+
+    /**
+     * attaches a pooled wagon to the rear of the train, moves it off to the scrap train, and releases it again
+     */
+    @Benchmark
+    public boolean pooledWagon() {
+        boolean moved = train.attachToRear(pool.newPassengerWagon(-1, 50)) & train.moveOneWagon(-1, scrapTrain);
+        pool.release(scrapTrain);
+        return moved;
+    }
+
+    @Benchmark
+    public int getTotalNumberOfSeats() {
+        return train.getTotalNumberOfSeats();
+    }
+}
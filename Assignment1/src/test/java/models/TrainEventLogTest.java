@@ -0,0 +1,206 @@
+package models;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class TrainEventLogTest {
+    private static final int NUMBER_OF_TRAINS = 20;
+    private static final int WAGONS_PER_TRAIN = 10;
+
+    @TempDir
+    Path directory;
+
+    Fleet fleet;
+    TrainEventLog log;
+    List<Train> trains;
+
+    @BeforeEach
+    private void setup() throws IOException {
+        fleet = new Fleet();
+        log = TrainEventLog.open(directory, fleet);
+        trains = new ArrayList<>();
+
+        for (int t = 0; t < NUMBER_OF_TRAINS; t++) {
+            Train train = new Train(new Locomotive(t, 3 * WAGONS_PER_TRAIN), "Amsterdam", "Paris");
+            for (int w = 0; w < WAGONS_PER_TRAIN; w++) {
+                train.attachToRear(new PassengerWagon(t * WAGONS_PER_TRAIN + w, 1 + w));
+            }
+            fleet.register(train);
+            trains.add(train);
+        }
+    }
+
+    @AfterEach
+    private void closeLog() throws IOException {
+        log.close();
+    }
+
+    @Test
+    public void T01_AllKindsOfChangesAreReplayed() throws IOException {
+        Wagon wagon1 = new PassengerWagon(1001, 30);
+        wagon1.attachTail(new PassengerWagon(1002, 40));
+
+        assertTrue(fleet.attachToRear(trains.get(0), wagon1));
+        assertTrue(fleet.insertAtPosition(trains.get(1), 3, new PassengerWagon(1003, 50)));
+        fleet.reverse(trains.get(2));
+        fleet.reverse(trains.get(3));
+        assertTrue(fleet.attachToRear(trains.get(2), trains.get(3).findWagonAtPosition(4)));
+        assertTrue(fleet.insertAtPosition(trains.get(4), 2, trains.get(5).findWagonAtPosition(9)));
+        assertTrue(fleet.moveOneWagon(trains.get(6), 65, trains.get(7)));
+        assertTrue(fleet.splitAtPosition(trains.get(8), 5, trains.get(9)));
+        assertFalse(fleet.splitAtPosition(trains.get(8), 50, trains.get(9)));
+        assertTrue(fleet.apply(trains.get(10), new ShuntingPlan()
+                .moveOneWagon(105, trains.get(11))
+                .splitAtPosition(8, trains.get(12))
+                .insertAtPosition(1, trains.get(13).findWagonAtPosition(10))).isSuccessful());
+
+        // the plan is logged as the new state of each of its four trains
+        assertEquals(NUMBER_OF_TRAINS + 8 + 4, log.getSequence());
+        assertReplayedFleet();
+    }
+
+    @Test
+    public void T02_CheckpointReplacesTheLog() throws IOException {
+        fleet.splitAtPosition(trains.get(0), 6, trains.get(1));
+        log.checkpoint();
+        long sequence = log.getSequence();
+
+        assertEquals(List.of("events-" + sequence + ".log", "snapshot-" + sequence + ".fleet"), files());
+
+        fleet.moveOneWagon(trains.get(1), 13, trains.get(2));
+        fleet.reverse(trains.get(2));
+        log.checkpoint();
+        fleet.reverse(trains.get(3));
+
+        assertEquals(List.of("events-" + (sequence + 2) + ".log", "snapshot-" + (sequence + 2) + ".fleet"), files());
+        assertReplayedFleet();
+    }
+
+    @Test
+    public void T03_TornFinalEventIsDiscarded() throws IOException {
+        fleet.moveOneWagon(trains.get(0), 1, trains.get(1));
+        String expected = fleetToString(fleet);
+        long sequence = log.getSequence();
+        log.close();
+
+        Path logFile = directory.resolve("events-0.log");
+        Files.write(logFile, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        fleet = new Fleet();
+        log = TrainEventLog.open(directory, fleet);
+        assertEquals(expected, fleetToString(fleet));
+        assertEquals(sequence, log.getSequence());
+
+        // the log continues after the last complete event
+        fleet.reverse(fleet.getTrain(1));
+        assertReplayedFleet();
+    }
+
+    @Test
+    public void T04_ConcurrentChangesAreReplayed() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < 4; thread++) {
+            long seed = thread;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 20000; i++) {
+                    Train from = trains.get(random.nextInt(NUMBER_OF_TRAINS));
+                    Train to = trains.get(random.nextInt(NUMBER_OF_TRAINS));
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            fleet.moveOneWagon(from, random.nextInt(NUMBER_OF_TRAINS * WAGONS_PER_TRAIN), to);
+                            break;
+                        case 1:
+                            fleet.splitAtPosition(from, 1 + random.nextInt(WAGONS_PER_TRAIN), to);
+                            break;
+                        default:
+                            fleet.reverse(from);
+                            break;
+                    }
+                }
+            }));
+        }
+        futures.add(executor.submit(() -> {
+            log.checkpoint();
+            return null;
+        }));
+
+        for (Future<?> future : futures) future.get();
+        executor.shutdown();
+
+        assertReplayedFleet();
+    }
+
+    @Test
+    public void T05_ManyEventsAreLoggedQuickly() throws IOException {
+        Train train = trains.get(0);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 1_000_000; i++) fleet.reverse(train);
+        log.sync();
+
+        assertTrue(System.nanoTime() - start < 10_000_000_000L);
+        assertEquals(NUMBER_OF_TRAINS + 1_000_000, log.getSequence());
+    }
+
+    @Test
+    public void T06_CheckpointsAreTakenInTheBackground() throws Exception {
+        log.close();
+        fleet = new Fleet();
+        log = TrainEventLog.open(directory, fleet, TrainEventLog.DEFAULT_SYNC_INTERVAL, 1000);
+        Train train = fleet.getTrain(1);
+
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (files().contains("events-0.log") && System.nanoTime() < deadline) {
+            fleet.reverse(train);
+            Thread.sleep(1);
+        }
+
+        assertFalse(files().contains("events-0.log"));
+        assertTrue(files().stream().anyMatch(file -> file.startsWith("snapshot-")));
+        assertReplayedFleet();
+    }
+
+    /**
+     * Closes the log and verifies that a new fleet, rebuilt from the log, equals the current fleet
+     */
+    private void assertReplayedFleet() throws IOException {
+        String expected = fleetToString(fleet);
+        long sequence = log.getSequence();
+        log.close();
+
+        fleet = new Fleet();
+        log = TrainEventLog.open(directory, fleet);
+
+        assertEquals(expected, fleetToString(fleet));
+        assertEquals(sequence, log.getSequence());
+    }
+
+    private static String fleetToString(Fleet fleet) {
+        return fleet.readAll(trains -> trains.stream().map(Train::toString).collect(Collectors.joining("\n")));
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class TrainSnapshotTest {
+    Train passengerTrain, freightTrain;
+    TrainSnapshot passengerSnapshot, emptySnapshot;
+    PassengerWagon passengerWagon1, passengerWagon2;
+
+    @BeforeEach
+    private void setup() {
+        passengerTrain = new Train(new Locomotive(24531, 9), "Amsterdam", "Paris");
+        passengerTrain.attachToRear(new PassengerWagon(8001, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8002, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8003, 18));
+        passengerTrain.attachToRear(new PassengerWagon(8004, 44));
+        passengerTrain.attachToRear(new PassengerWagon(8005, 44));
+        passengerTrain.attachToRear(new PassengerWagon(8006, 44));
+        passengerTrain.attachToRear(new PassengerWagon(8007, 40));
+        passengerSnapshot = passengerTrain.snapshot();
+
+        freightTrain = new Train(new Locomotive(63427, 50), "Amsterdam", "Berlin");
+        freightTrain.attachToRear(new FreightWagon(9001, 50000));
+
+        emptySnapshot = new TrainSnapshot(new Locomotive(29123, 4), "Amsterdam", "London");
+
+        passengerWagon1 = new PassengerWagon(8011, 50);
+        passengerWagon2 = new PassengerWagon(8012, 50);
+        passengerWagon1.attachTail(passengerWagon2);
+    }
+
+    @Test
+    public void T01_SnapshotHasTheCompositionOfTheTrain() {
+        assertEquals(passengerTrain.toString(), passengerSnapshot.toString());
+        assertEquals(7, passengerSnapshot.getNumberOfWagons());
+        assertEquals(254, passengerSnapshot.getTotalNumberOfSeats());
+        assertEquals(0, passengerSnapshot.getTotalMaxWeight());
+        assertEquals(8003, passengerSnapshot.getWagonId(3));
+        assertEquals(40, passengerSnapshot.getCapacity(7));
+        assertThrows(IndexOutOfBoundsException.class, () -> passengerSnapshot.getWagonId(8));
+        assertEquals(50000, freightTrain.snapshot().getTotalMaxWeight());
+        assertFalse(emptySnapshot.hasWagons());
+    }
+
+    @Test
+    public void T02_SnapshotIsSharedUntilTheTrainChanges() {
+        assertSame(passengerSnapshot, passengerTrain.snapshot());
+
+        passengerTrain.reverse();
+        TrainSnapshot reversedSnapshot = passengerTrain.snapshot();
+        assertNotSame(passengerSnapshot, reversedSnapshot);
+        assertEquals(8007, reversedSnapshot.getWagonId(1));
+        assertEquals(8001, passengerSnapshot.getWagonId(1));
+
+        passengerTrain.getFirstWagon();
+        passengerTrain.iterator().next();
+        assertSame(reversedSnapshot, passengerTrain.snapshot());
+
+        passengerTrain.attachToRear(passengerWagon1);
+        assertEquals(passengerTrain.toString(), passengerTrain.snapshot().toString());
+    }
+
+    @Test
+    public void T03_OperationsCreateNewSnapshotsWithoutChangingAnything() {
+        TrainSnapshot attached = passengerSnapshot.attachToRear(passengerWagon1);
+        assertEquals(9, attached.getNumberOfWagons());
+        assertEquals(354, attached.getTotalNumberOfSeats());
+        assertEquals(8012, attached.getWagonId(9));
+        assertEquals(7, passengerSnapshot.getNumberOfWagons());
+        assertEquals(7, passengerTrain.getNumberOfWagons());
+        assertEquals(passengerWagon2, passengerWagon1.getNextWagon());
+
+        TrainSnapshot inserted = passengerSnapshot.insertAtPosition(3, passengerWagon1);
+        assertEquals("[Loc-24531][Wagon-8001][Wagon-8002][Wagon-8011][Wagon-8012][Wagon-8003][Wagon-8004]" +
+                "[Wagon-8005][Wagon-8006][Wagon-8007] with 9 wagons from Amsterdam to Paris\nTotal number of seats: 354",
+                inserted.toString());
+        assertEquals(8011, passengerSnapshot.insertAtFront(passengerWagon1).getWagonId(1));
+        assertEquals(8012, emptySnapshot.insertAtPosition(1, passengerWagon1).getWagonId(2));
+
+        Train train = inserted.toTrain();
+        assertEquals(inserted.toString(), train.toString());
+        assertNotSame(passengerWagon1, train.findWagonById(8011));
+    }
+
+    @Test
+    public void T04_RejectedOperationsReturnNull() {
+        assertNull(passengerSnapshot.attachToRear(passengerSnapshot));
+        assertNull(passengerSnapshot.attachToRear(freightTrain.getFirstWagon()));
+        assertNull(passengerSnapshot.insertAtPosition(8, passengerWagon1));
+        assertNull(passengerSnapshot.insertAtPosition(0, passengerWagon1));
+        assertNull(passengerSnapshot.attachToRear(passengerWagon1).attachToRear(new PassengerWagon(8013, 10)));
+        assertNull(passengerSnapshot.splitAtPosition(2, emptySnapshot));
+        assertNull(passengerSnapshot.splitAtPosition(8, emptySnapshot));
+        assertNull(passengerSnapshot.splitAtPosition(7, freightTrain.snapshot()));
+    }
+
+    @Test
+    public void T05_SplitMovesTheRearToAnotherSnapshot() {
+        TrainSnapshot.Split split = passengerSnapshot.splitAtPosition(4, emptySnapshot);
+
+        assertEquals(3, split.getFromTrain().getNumberOfWagons());
+        assertEquals(82, split.getFromTrain().getTotalNumberOfSeats());
+        assertEquals(4, split.getToTrain().getNumberOfWagons());
+        assertEquals(8004, split.getToTrain().getWagonId(1));
+        assertEquals("London", split.getToTrain().getDestination());
+        assertEquals(7, passengerSnapshot.getNumberOfWagons());
+
+        TrainSnapshot rejoined = split.getFromTrain().insertAtPosition(2, split.getToTrain());
+        assertEquals(8004, rejoined.getWagonId(2));
+        assertEquals(8002, rejoined.getWagonId(6));
+        assertEquals(254, rejoined.getTotalNumberOfSeats());
+    }
+
+    @Test
+    public void T06_RandomOperationsMatchACompactTrain() {
+        Random random = new Random(2021);
+        Locomotive locomotive = new Locomotive(1, 100000);
+        TrainSnapshot snapshot = new TrainSnapshot(locomotive, "Amsterdam", "Paris");
+        TrainSnapshot other = new TrainSnapshot(locomotive, "Amsterdam", "Paris");
+        CompactTrain compact = new CompactTrain(locomotive, "Amsterdam", "Paris");
+        CompactTrain compactOther = new CompactTrain(locomotive, "Amsterdam", "Paris");
+        int nextId = 1;
+
+        for (int i = 0; i < 5000; i++) {
+            int operation = random.nextInt(4);
+
+            if (operation < 2 || !snapshot.hasWagons()) {
+                Wagon wagon = new PassengerWagon(nextId++, 1 + random.nextInt(60));
+                int position = 1 + random.nextInt(snapshot.getNumberOfWagons() + 1);
+                if (position > snapshot.getNumberOfWagons()) {
+                    snapshot = snapshot.attachToRear(wagon);
+                    compact.attachToRear(wagon);
+                } else {
+                    snapshot = snapshot.insertAtPosition(position, wagon);
+                    compact.insertAtPosition(position, wagon);
+                }
+            } else if (operation == 2) {
+                int position = 1 + random.nextInt(snapshot.getNumberOfWagons());
+                TrainSnapshot.Split split = snapshot.splitAtPosition(position, other);
+                snapshot = split.getFromTrain();
+                other = split.getToTrain();
+                compact.splitAtPosition(position, compactOther);
+            } else if (other.hasWagons()) {
+                TrainSnapshot.Split split = other.splitAtPosition(1 + random.nextInt(other.getNumberOfWagons()), snapshot);
+                other = split.getFromTrain();
+                snapshot = split.getToTrain();
+                compactOther.splitAtPosition(other.getNumberOfWagons() + 1, compact);
+            }
+        }
+
+        assertEquals(compact.toString(), snapshot.toString());
+        assertEquals(compactOther.toString(), other.toString());
+        assertEquals(compact.getTotalNumberOfSeats(), snapshot.getTotalNumberOfSeats());
+    }
+
+    @Test
+    public void T07_SnapshotsFollowTheChangesOfTheTrain() {
+        Random random = new Random(2110);
+        Train otherTrain = new Train(new Locomotive(1, 1000), "Amsterdam", "Paris");
+        otherTrain.snapshot();
+        int nextId = 1;
+
+        for (int i = 0; i < 3000; i++) {
+            int operation = random.nextInt(6);
+            int wagons = passengerTrain.getNumberOfWagons();
+
+            if (operation == 0 && wagons < 9) {
+                passengerTrain.insertAtPosition(1 + random.nextInt(wagons + 1), new PassengerWagon(nextId++, 1 + random.nextInt(60)));
+            } else if (operation == 1 && wagons > 0) {
+                passengerTrain.moveOneWagon(passengerTrain.findWagonAtPosition(1 + random.nextInt(wagons)).getId(), otherTrain);
+            } else if (operation == 2 && wagons > 0) {
+                passengerTrain.splitAtPosition(1 + random.nextInt(wagons), otherTrain);
+            } else if (operation == 3 && otherTrain.hasWagons()) {
+                Wagon wagon = otherTrain.findWagonAtPosition(1 + random.nextInt(otherTrain.getNumberOfWagons()));
+                passengerTrain.insertAtPosition(1 + random.nextInt(wagons + 1), wagon);
+            } else if (operation == 4) {
+                passengerTrain.reverse();
+            } else if (otherTrain.hasWagons()) {
+                otherTrain.reverse();
+                otherTrain.moveOneWagon(otherTrain.findWagonAtPosition(1).getId(), passengerTrain);
+            }
+
+            assertEquals(passengerTrain.toString(), passengerTrain.snapshot().toString());
+            assertEquals(otherTrain.toString(), otherTrain.snapshot().toString());
+        }
+    }
+
+    @Test
+    public void T08_CanAttachDoesNotChangeTheTrainOfTheWagons() {
+        passengerTrain.reverse();
+        Wagon wagon = passengerTrain.findWagonAtPosition(5);
+        Wagon linkedWagon = wagon.getNextWagon();
+
+        assertEquals(8003, wagon.getId());
+        assertFalse(new TrainSnapshot(new Locomotive(1, 2), "Amsterdam", "Paris").canAttach(wagon));
+        assertFalse(new Train(new Locomotive(1, 2), "Amsterdam", "Paris").canAttach(wagon));
+        assertTrue(new Train(new Locomotive(1, 3), "Amsterdam", "Paris").canAttach(wagon));
+        assertSame(linkedWagon, wagon.getNextWagon());
+        TrainSnapshot attached = new TrainSnapshot(new Locomotive(1, 3), "Amsterdam", "Paris").attachToRear(wagon);
+        assertEquals("[Loc-1][Wagon-8003][Wagon-8002][Wagon-8001] with 3 wagons from Amsterdam to Paris\nTotal number of seats: 82",
+                attached.toString());
+        assertSame(linkedWagon, wagon.getNextWagon());
+    }
+}
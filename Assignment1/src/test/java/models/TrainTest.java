@@ -2,6 +2,12 @@ package models;
 
 import org.junit.jupiter.api.*;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @TestMethodOrder(MethodOrderer.MethodName.class)
@@ -306,4 +312,143 @@ public class TrainTest {
         trainWithoutWagons.reverse();
         assertEquals(0, trainWithoutWagons.getNumberOfWagons());
     }
+
+    @Test
+    public void T19_CachedPropertiesFollowSplitsAndMoves() {
+        assertTrue(passengerTrain.splitAtPosition(5, trainWithoutWagons));
+        assertEquals(126, passengerTrain.getTotalNumberOfSeats());
+        assertEquals(128, trainWithoutWagons.getTotalNumberOfSeats());
+        assertEquals(8004, passengerTrain.getLastWagonAttached().getId());
+        assertEquals(8007, trainWithoutWagons.getLastWagonAttached().getId());
+
+        assertTrue(trainWithoutWagons.moveOneWagon(8007, passengerTrain));
+        assertEquals(166, passengerTrain.getTotalNumberOfSeats());
+        assertEquals(88, trainWithoutWagons.getTotalNumberOfSeats());
+        assertEquals(8007, passengerTrain.getLastWagonAttached().getId());
+        assertEquals(8006, trainWithoutWagons.getLastWagonAttached().getId());
+
+        passengerTrain.reverse();
+        assertEquals(8001, passengerTrain.getLastWagonAttached().getId());
+        assertEquals(166, passengerTrain.getTotalNumberOfSeats());
+    }
+
+    @Test
+    public void T19_AttachingAWagonOfAnotherTrainUpdatesBothTrains() {
+        Wagon lastWagon = passengerTrain.getLastWagonAttached();
+        assertTrue(trainWithoutWagons.attachToRear(passengerTrain.findWagonAtPosition(6)));
+
+        assertEquals(5, passengerTrain.getNumberOfWagons());
+        assertEquals(170, passengerTrain.getTotalNumberOfSeats());
+        assertEquals(8005, passengerTrain.getLastWagonAttached().getId());
+        assertEquals(2, trainWithoutWagons.getNumberOfWagons());
+        assertEquals(84, trainWithoutWagons.getTotalNumberOfSeats());
+        assertSame(lastWagon, trainWithoutWagons.getLastWagonAttached());
+
+        assertTrue(trainWithoutWagons.insertAtPosition(2, passengerWagon1));
+        assertEquals(5, trainWithoutWagons.getNumberOfWagons());
+        assertEquals(234, trainWithoutWagons.getTotalNumberOfSeats());
+        assertEquals(8013, trainWithoutWagons.findWagonAtPosition(4).getId());
+    }
+
+    @Test
+    public void T19_CantAttachASequenceThatContainsAWagonOfTheTrain() {
+        Wagon duplicate = new PassengerWagon(8013, 18);
+        assertTrue(trainWithoutWagons.attachToRear(duplicate));
+
+        assertFalse(trainWithoutWagons.attachToRear(passengerWagon1));
+        assertEquals(1, trainWithoutWagons.getNumberOfWagons());
+        assertEquals(2, passengerWagon1.getTailLength());
+        assertSame(duplicate, trainWithoutWagons.findWagonById(8013));
+        assertNull(trainWithoutWagons.findWagonById(8011));
+    }
+
+    @Test
+    public void T19_AReversedTrainBehavesAsReversedForAllOperations() {
+        passengerTrain.reverse();
+        assertEquals(8001, passengerTrain.getLastWagonAttached().getId());
+        assertTrue(passengerTrain.toString().startsWith("[Loc-24531][Wagon-8007][Wagon-8006]"));
+
+        assertTrue(passengerTrain.moveOneWagon(8007, trainWithoutWagons));
+        assertTrue(trainWithoutWagons.insertAtFront(passengerWagon1));
+        trainWithoutWagons.reverse();
+        assertTrue(trainWithoutWagons.attachToRear(new PassengerWagon(8014, 10)));
+        assertTrue(trainWithoutWagons.insertAtPosition(2, new PassengerWagon(8015, 10)));
+        assertEquals(8015, trainWithoutWagons.findWagonAtPosition(2).getId());
+        assertTrue(trainWithoutWagons.toString().contains("[Wagon-8007][Wagon-8015][Wagon-8013][Wagon-8012][Wagon-8011][Wagon-8014] with 6 wagons"));
+
+        assertTrue(passengerTrain.splitAtPosition(6, trainWithoutWagons));
+        assertEquals(7, trainWithoutWagons.getNumberOfWagons());
+        assertEquals(8001, trainWithoutWagons.getLastWagonAttached().getId());
+        assertEquals(8014, trainWithoutWagons.findWagonAtPosition(6).getId());
+        assertEquals(8002, passengerTrain.getLastWagonAttached().getId());
+
+        StringBuilder ids = new StringBuilder();
+        for (Wagon wagon : trainWithoutWagons) {
+            ids.append(wagon.getId()).append(' ');
+        }
+        assertEquals("8007 8015 8013 8012 8011 8014 8001 ", ids.toString());
+
+        // reading the first wagon does not relink the reversed train
+        passengerTrain.reverse();
+        Wagon first = passengerTrain.getFirstWagon();
+        Wagon linked = first.getNextWagon();
+        assertEquals(8002, passengerTrain.getFirstWagon().getId());
+        assertSame(linked, first.getNextWagon());
+    }
+
+    @Test
+    public void T20_IterateOverTheWagonsOfATrain() {
+        List<Integer> ids = new ArrayList<>();
+        for (Wagon wagon : passengerTrain) ids.add(wagon.getId());
+        assertEquals(List.of(8001, 8002, 8003, 8004, 8005, 8006, 8007), ids);
+
+        passengerTrain.reverse();
+        assertEquals(List.of(8007, 8006, 8005, 8004, 8003, 8002, 8001),
+                passengerTrain.stream().map(Wagon::getId).collect(Collectors.toList()));
+        assertEquals(7, passengerTrain.spliterator().getExactSizeIfKnown());
+        assertFalse(trainWithoutWagons.iterator().hasNext());
+    }
+
+    @Test
+    public void T20_StreamTheWagonsOfALongTrainInParallel() {
+        Train longTrain = new Train(new Locomotive(1, 100000), "Amsterdam", "Paris");
+        for (int id = 1; id <= 100000; id++) {
+            longTrain.attachToRear(new PassengerWagon(id, id % 100));
+        }
+
+        assertEquals(longTrain.getTotalNumberOfSeats(),
+                longTrain.parallelStream().mapToInt(wagon -> ((PassengerWagon) wagon).getNumberOfSeats()).sum());
+        assertEquals(100000, longTrain.parallelStream().count());
+        assertEquals(5000050000L, longTrain.parallelStream().mapToLong(Wagon::getId).sum());
+    }
+
+    @Test
+    public void T21_TheStringOfATrainIsReusedUntilItChanges() throws IOException {
+        String string = passengerTrain.toString();
+        assertSame(string, passengerTrain.toString());
+
+        passengerTrain.reverse();
+        assertNotSame(string, passengerTrain.toString());
+        assertTrue(passengerTrain.toString().startsWith("[Loc-24531][Wagon-8007][Wagon-8006]"));
+
+        string = passengerTrain.toString();
+        passengerTrain.moveOneWagon(8007, trainWithoutWagons);
+        assertEquals("[Loc-24531][Wagon-8006][Wagon-8005][Wagon-8004][Wagon-8003][Wagon-8002][Wagon-8001]"
+                + " with 6 wagons from Amsterdam to Paris\nTotal number of seats: 214", passengerTrain.toString());
+        assertEquals("[Loc-29123][Wagon-8007] with 1 wagons from Amsterdam to London\nTotal number of seats: 40",
+                trainWithoutWagons.toString());
+
+        Train zeroTrain = new Train(new Locomotive(0, 2), "Amsterdam", "Paris");
+        zeroTrain.attachToRear(new FreightWagon(0, 1000000000));
+        for (Train train : List.of(passengerTrain, trainWithoutWagons, freightTrain, zeroTrain)) {
+            StringWriter writer = new StringWriter();
+            train.writeTo(writer);
+            assertEquals(train.toString(), writer.toString());
+
+            train.splitAtPosition(1, new Train(new Locomotive(1, 10), "Amsterdam", "Paris"));
+            writer = new StringWriter();
+            train.writeTo(writer);
+            assertEquals(train.toString(), writer.toString());
+        }
+    }
 }
@@ -0,0 +1,135 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class WagonPoolTest {
+    static final int WARMUP = 20_000;
+    static final int OPERATIONS = 10_000;
+
+    WagonPool pool;
+    Train train, spareTrain;
+
+    @BeforeEach
+    private void setup() {
+        pool = new WagonPool();
+        train = new Train(new Locomotive(24531, 2000), "Amsterdam", "Paris");
+        spareTrain = new Train(new Locomotive(63427, 2000), "Amsterdam", "London");
+
+        for (int id = 1; id <= 1000; id++) {
+            train.attachToRear(pool.newPassengerWagon(id, 40));
+        }
+    }
+
+    @Test
+    public void T01_ReleasedWagonsAreReused() {
+        Wagon first = train.getFirstWagon();
+        pool.release(train);
+
+        assertFalse(train.hasWagons());
+        assertEquals(1000, pool.size());
+        assertNull(first.getTrain());
+        assertFalse(first.hasNextWagon());
+
+        PassengerWagon wagon = pool.newPassengerWagon(5001, 24);
+        assertEquals(999, pool.size());
+        assertEquals(5001, wagon.getId());
+        assertEquals(24, wagon.getNumberOfSeats());
+        assertTrue(spareTrain.attachToRear(wagon));
+        assertEquals(24, spareTrain.getTotalNumberOfSeats());
+
+        FreightWagon freightWagon = pool.newFreightWagon(9001, 50000);
+        assertEquals(50000, freightWagon.getMaxWeight());
+        pool.release(freightWagon);
+        assertSame(freightWagon, pool.newFreightWagon(9002, 60000));
+        assertEquals(9002, freightWagon.getId());
+    }
+
+    @Test
+    public void T02_WagonsOfATrainCannotBeReleased() {
+        Wagon wagon = train.findWagonAtPosition(10);
+
+        assertThrows(IllegalArgumentException.class, () -> pool.release(wagon));
+        assertEquals(1000, train.getNumberOfWagons());
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void T03_ShuntingDoesNotAllocate() {
+        // a snapshot is only made again when it is asked for
+        train.snapshot();
+        spareTrain.snapshot();
+        long allocated = allocatedBytes(() -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                int id = 1 + i % 1000;
+                train.moveOneWagon(id, spareTrain);
+                spareTrain.splitAtPosition(1, train);
+                train.splitAtPosition(501, spareTrain);
+                assertTrue(train.insertAtPosition(300, spareTrain.getLastWagonAttached()));
+                train.attachToRear(spareTrain.getFirstWagon());
+                train.reverse();
+            }
+        });
+
+        assertEquals(1000, train.getNumberOfWagons());
+        assertTrue(allocated < OPERATIONS, "allocated " + allocated + " bytes");
+    }
+
+    @Test
+    public void T04_PooledWagonsDoNotAllocate() {
+        long allocated = allocatedBytes(() -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                spareTrain.attachToRear(pool.newPassengerWagon(10_000 + i % 100, 40));
+                if (spareTrain.getNumberOfWagons() == 100) pool.release(spareTrain);
+            }
+        });
+
+        assertTrue(allocated < OPERATIONS, "allocated " + allocated + " bytes");
+    }
+
+    @Test
+    public void T05_WagonsCannotBeReleasedTwice() {
+        FreightWagon wagon = pool.newFreightWagon(9001, 50000);
+        pool.release(wagon);
+
+        assertThrows(IllegalArgumentException.class, () -> pool.release(wagon));
+        assertEquals(1, pool.size());
+
+        // a wagon that has been handed out again can be released again
+        assertSame(wagon, pool.newFreightWagon(9002, 60000));
+        pool.release(wagon);
+        assertEquals(1, pool.size());
+
+        // nothing of a sequence is released if any of its wagons has been released already
+        PassengerWagon released = pool.newPassengerWagon(5002, 24);
+        pool.release(released);
+        PassengerWagon first = new PassengerWagon(5001, 24);
+        first.attachTail(released);
+
+        assertThrows(IllegalArgumentException.class, () -> pool.release(first));
+        assertEquals(2, pool.size());
+        assertSame(released, first.getNextWagon());
+    }
+
+    /**
+     * @return the number of bytes allocated by the current thread while running the operations
+     * once more after a warm-up, which lets the JIT compiler optimise them first
+     */
+    private static long allocatedBytes(Runnable operations) {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        for (int i = 0; i < WARMUP / OPERATIONS; i++) operations.run();
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        operations.run();
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+}
@@ -0,0 +1,141 @@
+package models;
+
+/**
+ * A hash map from primitive long keys, such as barcodes, to accumulated long counts,
+ * using open addressing with linear probing, so that neither keys nor counts are ever boxed.
+ * Keys can only be added, which is all that aggregation needs.
+ */
+public class LongCountMap {
+    private static final int INITIAL_CAPACITY = 16;   // must be a power of two
+
+    private long[] keys;
+    private long[] counts;
+    private boolean[] used;         // whether a slot holds a key
+    private int size;
+    // representation-invariant
+    //      keys.length == counts.length == used.length is a power of two, and at most 1/2 of the slots are in use
+    //      every key is found by probing forward from its home slot without passing a free slot
+
+    public LongCountMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public LongCountMap(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < 2 * expectedSize) capacity <<= 1;
+
+        this.keys = new long[capacity];
+        this.counts = new long[capacity];
+        this.used = new boolean[capacity];
+    }
+
+    /**
+     * Receives the keys and counts of a map
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long count);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return used[findSlot(key)];
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the accumulated count of the key, or 0 if the key is not in the map
+     */
+    public long get(long key) {
+        int slot = findSlot(key);
+        return used[slot] ? counts[slot] : 0;
+    }
+
+    /**
+     * Adds a delta to the count of a key, adding the key with count delta if it is not in the map yet
+     *
+     * @param key   the key
+     * @param delta the amount to be added to the count of the key
+     * @return the new count of the key
+     */
+    public long add(long key, long delta) {
+        int slot = findSlot(key);
+
+        if (used[slot]) return counts[slot] += delta;
+
+        keys[slot] = key;
+        counts[slot] = delta;
+        used[slot] = true;
+        if (++size > keys.length / 2) resize(2 * keys.length);
+
+        return delta;
+    }
+
+    /**
+     * Adds the counts of all keys of another map to the counts of this map
+     *
+     * @param other the map with the counts to be added
+     */
+    public void addAll(LongCountMap other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.used[slot]) add(other.keys[slot], other.counts[slot]);
+        }
+    }
+
+    /**
+     * Passes every key and its count to the consumer, in no particular order
+     *
+     * @param consumer the receiver of the entries
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) consumer.accept(keys[slot], counts[slot]);
+        }
+    }
+
+    /**
+     * @return the slot that holds the key, or the free slot where the key would be inserted
+     */
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        boolean[] oldUsed = used;
+
+        keys = new long[capacity];
+        counts = new long[capacity];
+        used = new boolean[capacity];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        // spread barcodes, which often differ only in their last digits, across the table
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
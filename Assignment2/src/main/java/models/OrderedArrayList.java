@@ -1,15 +1,19 @@
 package models;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.function.BinaryOperator;
 
 public class OrderedArrayList<E>
         extends ArrayList<E>
         implements OrderedList<E> {
+    private static final int INSERTION_SORT_LIMIT = 8;  // the largest unsorted tail that is sorted by insertion
 
     protected Comparator<? super E> ordening;   // the comparator that has been used with the latest sort
     protected int nSorted;                      // the number of items that have been ordered by barcode in the list
+    protected boolean sortedInsertion;          // whether add(item) and merge() insert at the ordered position
     // representation-invariant
     //      all items at index positions 0 <= index < nSorted have been ordered by the given ordening comparator
     //      other items at index position nSorted <= index < size() can be in any order amongst themselves
@@ -29,6 +33,28 @@ public class OrderedArrayList<E>
         return this.ordening;
     }
 
+    public boolean isSortedInsertion() {
+        return this.sortedInsertion;
+    }
+
+    /**
+     * switches the sorted-insertion mode on or off.
+     * In sorted-insertion mode the list is sorted once, and from then on add(item), addAll(items) and merge()
+     * insert new items at their ordered position, so that searches never need to scan an unsorted section.
+     * Items that are placed by index with add(index, item) or set(index, item) may still end the sorted section.
+     * Every insertion shifts all items after its position, so this mode suits lists that are mostly searched
+     * after they have been loaded; a catalogue with many insertions is better kept in an OrderedBPlusTreeList.
+     *
+     * @param sortedInsertion whether new items shall be inserted at their ordered position
+     */
+    public void setSortedInsertion(boolean sortedInsertion) {
+        if (sortedInsertion && this.ordening == null) {
+            throw new IllegalStateException("Sorted insertion requires an ordening comparator");
+        }
+        this.sortedInsertion = sortedInsertion;
+        if (sortedInsertion) this.sort();
+    }
+
     @Override
     public void clear() {
         super.clear();
@@ -37,11 +63,34 @@ public class OrderedArrayList<E>
 
     @Override
     public void sort(Comparator<? super E> comparator) {
+        if (comparator == null) this.sortedInsertion = false;
         super.sort(comparator);
         this.ordening = comparator;
         this.nSorted = this.size();
     }
 
+    /**
+     * appends the item, or in sorted-insertion mode inserts it after all items that are not greater
+     */
+    @Override
+    public boolean add(E element) {
+        if (!this.sortedInsertion || this.nSorted < this.size()) return super.add(element);
+
+        super.add(indexAfterEqualItems(element, 0, this.nSorted), element);
+        this.nSorted++;
+        return true;
+    }
+
+    /**
+     * appends the items, or in sorted-insertion mode merges them into the sorted list in one pass
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> items) {
+        boolean changed = super.addAll(items);
+        if (this.sortedInsertion) this.sort();
+        return changed;
+    }
+
     @Override
     public void add(int index, E element) {
         super.add(index, element);
@@ -62,9 +111,75 @@ public class OrderedArrayList<E>
         return super.remove(o);
     }
 
+    /**
+     * sorts the list by the ordening comparator, retaining the order of equal items.
+     * Only the unsorted section is sorted, and then merged into the sorted section:
+     * a few items are each inserted at the position found by binary search,
+     * a longer section is sorted in a buffer and merged from the back in O(k log k + n) for k unsorted items.
+     */
     @Override
     public void sort() {
-        if (this.nSorted < this.size()) this.sort(this.ordening);
+        if (this.nSorted >= this.size()) return;
+
+        if (this.ordening == null || this.nSorted == 0) {
+            this.sort(this.ordening);
+        } else if (this.size() - this.nSorted <= INSERTION_SORT_LIMIT) {
+            insertUnsortedItems();
+        } else {
+            mergeUnsortedItems();
+        }
+    }
+
+    /**
+     * moves every item of the unsorted section into the sorted section, after all items that are not greater
+     */
+    private void insertUnsortedItems() {
+        while (nSorted < size()) {
+            E item = get(nSorted);
+            int index = indexAfterEqualItems(item, 0, nSorted);
+            if (index < nSorted) {
+                super.remove(nSorted);
+                super.add(index, item);
+            }
+            nSorted++;
+        }
+    }
+
+    /**
+     * sorts a copy of the unsorted section and merges it with the sorted section,
+     * filling the list from the back so that neither the items before the first insertion point
+     * nor the sorted section need to be copied
+     */
+    @SuppressWarnings("unchecked")
+    private void mergeUnsortedItems() {
+        E[] unsorted = (E[]) subList(nSorted, size()).toArray();
+        Arrays.sort(unsorted, ordening);
+
+        int sorted = nSorted - 1;               // the last sorted item that has not been merged yet
+        int next = unsorted.length - 1;         // the last unsorted item that has not been merged yet
+        for (int index = size() - 1; next >= 0; index--) {
+            if (sorted >= 0 && ordening.compare(get(sorted), unsorted[next]) > 0) {
+                set(index, get(sorted--));
+            } else {
+                set(index, unsorted[next--]);
+            }
+        }
+        nSorted = size();
+    }
+
+    /**
+     * @return the first index in the sorted range [begin, end) of which the item is greater than the given item
+     */
+    private int indexAfterEqualItems(E item, int begin, int end) {
+        while (begin < end) {
+            int place = (begin + end) >>> 1;
+            if (ordening.compare(get(place), item) > 0) {
+                end = place;
+            } else {
+                begin = place + 1;
+            }
+        }
+        return begin;
     }
 
     @Override
@@ -153,14 +268,14 @@ public class OrderedArrayList<E>
     }
 
     /**
-     * Searches the unsorted part of the list for the item.
+     * Searches the unsorted part of the list for the item, using the this.ordening comparator for the equality test.
      *
      * @param searchItem the item you want to find
      * @return the index of the item you seatched for. -1 if the item is nt found
      */
     private int findUnsortedItem(E searchItem) {
         for (int i = Math.max(nSorted, 0); i < this.size(); i++) {
-            if (get(i) == searchItem) return i;
+            if (this.ordening.compare(get(i), searchItem) == 0) return i;
         }
 
         return -1;
@@ -181,6 +296,8 @@ public class OrderedArrayList<E>
     @Override
     public boolean merge(E newItem, BinaryOperator<E> merger) {
         if (newItem == null) return false;
+        if (this.sortedInsertion && this.nSorted == this.size()) return mergeSorted(newItem, merger);
+
         int matchedItemIndex = this.indexOfByRecursiveBinarySearch(newItem);
 
         if (matchedItemIndex < 0) {
@@ -192,4 +309,21 @@ public class OrderedArrayList<E>
             return false;
         }
     }
+
+    /**
+     * merges newItem into the fully sorted list with a single binary search:
+     * the match is the last item before the ordered position of newItem, if that compares equal
+     */
+    private boolean mergeSorted(E newItem, BinaryOperator<E> merger) {
+        int index = indexAfterEqualItems(newItem, 0, this.nSorted);
+
+        if (index > 0 && this.ordening.compare(get(index - 1), newItem) == 0) {
+            this.set(index - 1, merger.apply(get(index - 1), newItem));
+            return false;
+        } else {
+            super.add(index, newItem);
+            this.nSorted++;
+            return true;
+        }
+    }
 }
@@ -0,0 +1,747 @@
+package models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+/**
+ * An OrderedList that keeps all items ordered in an in-memory B+tree, for catalogues of millions of items.
+ * The items are held in leaves of up to LEAF_CAPACITY items in consecutive array slots, which are linked
+ * from left to right for ordered scans. Every branch counts the items below each of its children,
+ * so that positional access by index, and the index of a found item, take O(log n) time as well.
+ * add(item), remove(index), indexOf(item) and merge() take O(log n) time,
+ * and addAll() of many items merges them with the tree and bulk loads a new tree in O(n + k log k) time.
+ * Sequential access by increasing index, and iteration, take O(1) time per item.
+ * <p>
+ * The tree is always sorted: items cannot be inserted at a given index, and set(index, item)
+ * only accepts an item that compares equal to the item it replaces.
+ * Like ArrayList, the tree may be read by many threads at once, but not while it is changed.
+ */
+public class OrderedBPlusTreeList<E>
+        extends AbstractList<E>
+        implements OrderedList<E> {
+    private static final int LEAF_CAPACITY = 64;
+    private static final int BRANCH_CAPACITY = 64;
+
+    private Comparator<? super E> ordening;     // the comparator that orders all items in the tree
+    private Node root;
+    private Leaf first;                         // the leftmost leaf, where ordered scans start
+    private Finger finger;                      // the leaf of the latest positional access, for sequential access
+    private Object splitKey;                    // the smallest item of the node that has been split off last
+    // representation-invariant
+    //      the leaves hold all items in the order of the ordening comparator, from first along the next links
+    //      every branch has keys[i] >= all items below children[i-1] and keys[i] <= all items below children[i]
+    //      every branch has sizes[i] == the number of items below children[i], and size == the sum of sizes
+    //      all leaves are at the same depth, and all nodes but the root are at least half full
+
+    public OrderedBPlusTreeList(Comparator<? super E> ordening) {
+        super();
+        this.ordening = Objects.requireNonNull(ordening);
+        this.clear();
+    }
+
+    /**
+     * creates a tree of the given items, which is bulk loaded in O(n) time if the items are in order already
+     */
+    public OrderedBPlusTreeList(Comparator<? super E> ordening, Collection<? extends E> items) {
+        this(ordening);
+        this.addAll(items);
+    }
+
+    @Override
+    public Comparator<? super E> getOrdening() {
+        return this.ordening;
+    }
+
+    @Override
+    public int size() {
+        return this.root.size();
+    }
+
+    @Override
+    public void clear() {
+        this.first = new Leaf();
+        this.root = this.first;
+        this.finger = null;
+        this.modCount++;
+    }
+
+    /**
+     * the items are always in order, so there is nothing to be sorted
+     */
+    @Override
+    public void sort() {
+    }
+
+    /**
+     * orders the items by another comparator, which is used for all later additions and searches
+     *
+     * @param comparator the new ordening, or null for the natural order of the items
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super E> comparator) {
+        Comparator<? super E> ordening = comparator != null ? comparator : (Comparator<? super E>) Comparator.naturalOrder();
+        Object[] items = this.toArray();
+        Arrays.sort(items, (Comparator<Object>) ordening);
+        this.ordening = ordening;
+        bulkLoad(items, items.length);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Finger finger = leafAt(index);
+        return (E) finger.leaf.items[index - finger.start];
+    }
+
+    /**
+     * replaces the item at the index by an item that compares equal to it, e.g. the outcome of a merger
+     *
+     * @throws IllegalArgumentException if the new item would be out of order at the index
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        Finger finger = leafAt(index);
+        E replaced = (E) finger.leaf.items[index - finger.start];
+        if (element == null || this.ordening.compare(replaced, element) != 0) {
+            throw new IllegalArgumentException("The item " + element + " is out of order at index " + index);
+        }
+        finger.leaf.items[index - finger.start] = element;
+        return replaced;
+    }
+
+    /**
+     * inserts the item after all items that are not greater
+     */
+    @Override
+    public boolean add(E element) {
+        Objects.requireNonNull(element);
+        Node split = insert(this.root, element);
+        if (split != null) {
+            Branch branch = new Branch();
+            branch.insertChild(0, null, this.root);
+            branch.insertChild(1, this.splitKey, split);
+            this.root = branch;
+        }
+        this.finger = null;
+        this.modCount++;
+        return true;
+    }
+
+    /**
+     * items are placed by their ordening, not by index
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void add(int index, E element) {
+        throw new UnsupportedOperationException("Items are placed by their ordening");
+    }
+
+    /**
+     * adds all items in their order; many items are merged with the tree into a new, bulk loaded tree,
+     * in O(n) time if the new items are in order already, and in O(n + k log k) time otherwise
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean addAll(Collection<? extends E> items) {
+        if (items.isEmpty()) return false;
+        if (items.size() < this.size() / LEAF_CAPACITY) {
+            for (E item : items) this.add(item);
+            return true;
+        }
+
+        Object[] added = items.toArray();
+        for (Object item : added) Objects.requireNonNull(item);
+        Arrays.sort(added, (Comparator<Object>) this.ordening);
+
+        // merge the added items after all equal items of the tree
+        Object[] merged = new Object[this.size() + added.length];
+        int index = 0, next = 0;
+        for (E item : this) {
+            while (next < added.length && this.ordening.compare((E) added[next], item) < 0) {
+                merged[index++] = added[next++];
+            }
+            merged[index++] = item;
+        }
+        while (next < added.length) merged[index++] = added[next++];
+
+        bulkLoad(merged, merged.length);
+        return true;
+    }
+
+    @Override
+    public E remove(int index) {
+        if (index < 0 || index >= this.size()) throw new IndexOutOfBoundsException(index);
+
+        E removed = removeAt(this.root, index);
+        if (this.root instanceof Branch && ((Branch) this.root).count == 1) {
+            this.root = ((Branch) this.root).children[0];
+        }
+        this.finger = null;
+        this.modCount++;
+        return removed;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = this.indexOf(o);
+        if (index < 0) return false;
+
+        this.remove(index);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int indexOf(Object item) {
+        if (item != null) return indexOfByBinarySearch((E) item);
+        return -1;
+    }
+
+    /**
+     * finds the first item that compares equal to the searchItem by the ordening, by a search from the root
+     *
+     * @param searchItem the item to be searched on the basis of comparison by this.ordening
+     * @return the position index of the found item, or -1 if no item matches the search item.
+     */
+    @Override
+    public int indexOfByBinarySearch(E searchItem) {
+        if (searchItem == null) return -1;
+
+        int index = indexOfFirstNotLess(searchItem);
+        if (index < this.size() && this.ordening.compare(get(index), searchItem) == 0) return index;
+        return -1;
+    }
+
+    /**
+     * finds a match of newItem in the tree and replaces it by the outcome of the merger,
+     * or adds the newItem if there is no match
+     *
+     * @param newItem the item you want to add/merge into the list.
+     * @param merger  a function that takes two items and returns an item that contains the merged content of
+     *                the two items, which shall compare equal to both
+     * @return whether a new item was added to the list or not
+     */
+    @Override
+    public boolean merge(E newItem, BinaryOperator<E> merger) {
+        if (newItem == null) return false;
+        int matchedItemIndex = this.indexOfByBinarySearch(newItem);
+
+        if (matchedItemIndex < 0) {
+            this.add(newItem);
+            return true;
+        } else {
+            E matchedItem = this.get(matchedItemIndex);
+            this.set(matchedItemIndex, merger.apply(matchedItem, newItem));
+            return false;
+        }
+    }
+
+    /**
+     * provides an ordered range scan of the tree
+     *
+     * @param fromItem the lower bound of the range, inclusive
+     * @param toItem   the upper bound of the range, exclusive
+     * @return a view of all items that are not less than fromItem and less than toItem
+     */
+    public List<E> range(E fromItem, E toItem) {
+        int fromIndex = indexOfFirstNotLess(fromItem);
+        return this.subList(fromIndex, Math.max(fromIndex, indexOfFirstNotLess(toItem)));
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private Leaf leaf = first;
+            private int position;               // the position in the leaf of the next item
+            private int index;                  // the index of the next item in the tree
+            private boolean lastReturned;       // whether the item before index was returned by next() and not removed yet
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < size();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+                if (!hasNext()) throw new NoSuchElementException();
+
+                while (this.position >= this.leaf.count) {
+                    this.leaf = this.leaf.next;
+                    this.position = 0;
+                }
+                this.index++;
+                this.lastReturned = true;
+                return (E) this.leaf.items[this.position++];
+            }
+
+            @Override
+            public void remove() {
+                if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+                if (!this.lastReturned) throw new IllegalStateException();
+
+                OrderedBPlusTreeList.this.remove(--this.index);
+                this.lastReturned = false;
+                Finger next = this.index < size() ? leafAt(this.index) : null;
+                this.leaf = next != null ? next.leaf : first;
+                this.position = next != null ? this.index - next.start : 0;
+                this.expectedModCount = modCount;
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        for (Leaf leaf = this.first; leaf != null; leaf = leaf.next) {
+            for (int position = 0; position < leaf.count; position++) action.accept((E) leaf.items[position]);
+        }
+    }
+
+    /**
+     * @return the index of the first item that is not less than the given item, or size() if there is none
+     */
+    @SuppressWarnings("unchecked")
+    private int indexOfFirstNotLess(E item) {
+        Node node = this.root;
+        int index = 0;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int child = branch.childOf(item, this.ordening, false);
+            for (int i = 0; i < child; i++) index += branch.sizes[i];
+            node = branch.children[child];
+        }
+
+        Leaf leaf = (Leaf) node;
+        int begin = 0, end = leaf.count;
+        while (begin < end) {
+            int place = (begin + end) >>> 1;
+            if (this.ordening.compare((E) leaf.items[place], item) < 0) {
+                begin = place + 1;
+            } else {
+                end = place;
+            }
+        }
+        return index + begin;
+    }
+
+    /**
+     * finds the leaf of the item at the index, from the leaf of the latest access if the index is in or just after it
+     */
+    private Finger leafAt(int index) {
+        if (index < 0 || index >= this.size()) throw new IndexOutOfBoundsException(index);
+
+        Finger finger = this.finger;
+        if (finger != null && finger.modCount == this.modCount && index >= finger.start) {
+            if (index < finger.start + finger.leaf.count) return finger;
+            if (index == finger.start + finger.leaf.count && finger.leaf.next != null) {
+                finger = new Finger(finger.leaf.next, index, this.modCount);
+                this.finger = finger;
+                return finger;
+            }
+        }
+
+        Node node = this.root;
+        int start = 0;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int child = 0;
+            while (index - start >= branch.sizes[child]) start += branch.sizes[child++];
+            node = branch.children[child];
+        }
+        finger = new Finger((Leaf) node, start, this.modCount);
+        this.finger = finger;
+        return finger;
+    }
+
+    /**
+     * inserts the item into the subtree of the node after all items that are not greater
+     *
+     * @return a new right sibling of the node if the node has been split, with its smallest item in splitKey
+     */
+    @SuppressWarnings("unchecked")
+    private Node insert(Node node, E item) {
+        if (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int child = branch.childOf(item, this.ordening, true);
+            Node split = insert(branch.children[child], item);
+            branch.sizes[child]++;
+            branch.size++;
+            if (split == null) return null;
+
+            branch.sizes[child] -= split.size();
+            branch.size -= split.size();
+            return branch.insertChild(child + 1, this.splitKey, split) ? null : splitBranch(branch, child + 1, split);
+        }
+
+        Leaf leaf = (Leaf) node;
+        int begin = 0, end = leaf.count;
+        while (begin < end) {
+            int place = (begin + end) >>> 1;
+            if (this.ordening.compare((E) leaf.items[place], item) > 0) {
+                end = place;
+            } else {
+                begin = place + 1;
+            }
+        }
+        if (leaf.count < LEAF_CAPACITY) {
+            leaf.insert(begin, item);
+            return null;
+        }
+
+        Leaf right = new Leaf();
+        right.moveFrom(leaf, leaf.count / 2, leaf.count - leaf.count / 2, 0);
+        right.next = leaf.next;
+        leaf.next = right;
+        if (begin <= leaf.count) {
+            leaf.insert(begin, item);
+        } else {
+            right.insert(begin - leaf.count, item);
+        }
+        this.splitKey = right.items[0];
+        return right;
+    }
+
+    /**
+     * splits a full branch in two halves, and then inserts the child that did not fit
+     * (a child that is inserted at the end of the left half is still not greater than the key of the right half)
+     *
+     * @return the new right half, with the key of its first child in splitKey
+     */
+    private Branch splitBranch(Branch branch, int position, Node child) {
+        Object key = this.splitKey;
+        int half = branch.count / 2;
+        Branch right = new Branch();
+        right.moveFrom(branch, half, branch.count - half, 0);
+        this.splitKey = right.keys[0];
+        right.keys[0] = null;
+
+        if (position <= half) {
+            branch.insertChild(position, key, child);
+        } else {
+            right.insertChild(position - half, key, child);
+        }
+        return right;
+    }
+
+    /**
+     * removes the item at the index from the subtree of the node, and rebalances the children that became too small
+     */
+    @SuppressWarnings("unchecked")
+    private E removeAt(Node node, int index) {
+        if (node instanceof Leaf) return (E) ((Leaf) node).remove(index);
+
+        Branch branch = (Branch) node;
+        int child = 0;
+        while (index >= branch.sizes[child]) index -= branch.sizes[child++];
+        E removed = removeAt(branch.children[child], index);
+        branch.sizes[child]--;
+        branch.size--;
+
+        Node small = branch.children[child];
+        if (branch.count > 1 && small.count < (small instanceof Leaf ? LEAF_CAPACITY : BRANCH_CAPACITY) / 2) {
+            rebalance(branch, child > 0 ? child - 1 : child);
+        }
+        return removed;
+    }
+
+    /**
+     * merges two adjacent children of the branch if all their entries fit in one node,
+     * or else divides their entries evenly between them
+     */
+    private void rebalance(Branch branch, int left) {
+        Node leftNode = branch.children[left], rightNode = branch.children[left + 1];
+        int capacity = leftNode instanceof Leaf ? LEAF_CAPACITY : BRANCH_CAPACITY;
+        int entries = leftNode.count + rightNode.count;
+
+        if (entries <= capacity) {
+            leftNode.append(rightNode, branch.keys[left + 1]);
+            branch.removeChild(left + 1);
+            branch.sizes[left] = leftNode.size();
+            return;
+        }
+
+        int moved = entries / 2 - leftNode.count;
+        if (moved > 0) {
+            branch.keys[left + 1] = rightNode.shiftToLeft(leftNode, moved, branch.keys[left + 1]);
+        } else if (moved < 0) {
+            branch.keys[left + 1] = leftNode.shiftToRight(rightNode, -moved, branch.keys[left + 1]);
+        }
+        branch.sizes[left] = leftNode.size();
+        branch.sizes[left + 1] = rightNode.size();
+    }
+
+    /**
+     * replaces the tree by a tree of the first n items, which are in order,
+     * with leaves and branches that are filled evenly and at least half full
+     */
+    private void bulkLoad(Object[] items, int n) {
+        this.clear();
+        if (n == 0) return;
+
+        int leaves = (n + LEAF_CAPACITY - 1) / LEAF_CAPACITY;
+        Node[] level = new Node[leaves];
+        Object[] keys = new Object[leaves];
+        Leaf previous = null;
+        for (int i = 0; i < leaves; i++) {
+            Leaf leaf = new Leaf();
+            int from = (int) ((long) n * i / leaves), to = (int) ((long) n * (i + 1) / leaves);
+            System.arraycopy(items, from, leaf.items, 0, to - from);
+            leaf.count = to - from;
+            if (previous == null) this.first = leaf; else previous.next = leaf;
+            previous = leaf;
+            level[i] = leaf;
+            keys[i] = items[from];
+        }
+
+        while (level.length > 1) {
+            int branches = (level.length + BRANCH_CAPACITY - 1) / BRANCH_CAPACITY;
+            Node[] parents = new Node[branches];
+            Object[] parentKeys = new Object[branches];
+            for (int i = 0; i < branches; i++) {
+                Branch branch = new Branch();
+                int from = (int) ((long) level.length * i / branches), to = (int) ((long) level.length * (i + 1) / branches);
+                for (int child = from; child < to; child++) {
+                    branch.insertChild(child - from, child > from ? keys[child] : null, level[child]);
+                }
+                parents[i] = branch;
+                parentKeys[i] = keys[from];
+            }
+            level = parents;
+            keys = parentKeys;
+        }
+        this.root = level[0];
+    }
+
+    /**
+     * a node of the tree, with count entries: items in a leaf, or children in a branch
+     */
+    private abstract static class Node {
+        int count;
+
+        /**
+         * @return the number of items in the subtree of this node
+         */
+        abstract int size();
+
+        /**
+         * appends all entries of the right sibling to this node
+         *
+         * @param separator the key that separates this node from its right sibling
+         */
+        abstract void append(Node right, Object separator);
+
+        /**
+         * shifts the first n entries of this node to the end of its left sibling
+         *
+         * @param separator the key that separates the left sibling from this node
+         * @return the new key that separates the left sibling from this node
+         */
+        abstract Object shiftToLeft(Node left, int n, Object separator);
+
+        /**
+         * shifts the last n entries of this node to the start of its right sibling
+         *
+         * @param separator the key that separates this node from the right sibling
+         * @return the new key that separates this node from the right sibling
+         */
+        abstract Object shiftToRight(Node right, int n, Object separator);
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] items = new Object[LEAF_CAPACITY];
+        Leaf next;                              // the leaf with the next items in order
+
+        @Override
+        int size() {
+            return this.count;
+        }
+
+        void insert(int position, Object item) {
+            System.arraycopy(this.items, position, this.items, position + 1, this.count - position);
+            this.items[position] = item;
+            this.count++;
+        }
+
+        Object remove(int position) {
+            Object item = this.items[position];
+            System.arraycopy(this.items, position + 1, this.items, position, this.count - position - 1);
+            this.items[--this.count] = null;
+            return item;
+        }
+
+        /**
+         * moves n items of the leaf from the position to this leaf at the target position
+         */
+        void moveFrom(Leaf leaf, int position, int n, int target) {
+            System.arraycopy(this.items, target, this.items, target + n, this.count - target);
+            System.arraycopy(leaf.items, position, this.items, target, n);
+            this.count += n;
+            System.arraycopy(leaf.items, position + n, leaf.items, position, leaf.count - position - n);
+            Arrays.fill(leaf.items, leaf.count - n, leaf.count, null);
+            leaf.count -= n;
+        }
+
+        @Override
+        void append(Node right, Object separator) {
+            this.moveFrom((Leaf) right, 0, right.count, this.count);
+            this.next = ((Leaf) right).next;
+        }
+
+        @Override
+        Object shiftToLeft(Node left, int n, Object separator) {
+            ((Leaf) left).moveFrom(this, 0, n, left.count);
+            return this.items[0];
+        }
+
+        @Override
+        Object shiftToRight(Node right, int n, Object separator) {
+            ((Leaf) right).moveFrom(this, this.count - n, n, 0);
+            return ((Leaf) right).items[0];
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node[] children = new Node[BRANCH_CAPACITY];
+        final Object[] keys = new Object[BRANCH_CAPACITY];  // keys[i] separates children[i - 1] from children[i]
+        final int[] sizes = new int[BRANCH_CAPACITY];       // the number of items below each child
+        int size;
+
+        @Override
+        int size() {
+            return this.size;
+        }
+
+        /**
+         * @param upper whether to find the child of the first item that is greater than the item,
+         *              or else of the first item that is not less
+         * @return the child of the branch in which that item is to be found
+         */
+        @SuppressWarnings("unchecked")
+        <E> int childOf(E item, Comparator<? super E> ordening, boolean upper) {
+            int begin = 1, end = this.count;
+            while (begin < end) {
+                int place = (begin + end) >>> 1;
+                int compareResult = ordening.compare((E) this.keys[place], item);
+                if (compareResult < 0 || upper && compareResult == 0) {
+                    begin = place + 1;
+                } else {
+                    end = place;
+                }
+            }
+            return begin - 1;
+        }
+
+        /**
+         * @return whether the child fitted in the branch
+         */
+        boolean insertChild(int position, Object key, Node child) {
+            if (this.count == BRANCH_CAPACITY) return false;
+
+            System.arraycopy(this.children, position, this.children, position + 1, this.count - position);
+            System.arraycopy(this.keys, position, this.keys, position + 1, this.count - position);
+            System.arraycopy(this.sizes, position, this.sizes, position + 1, this.count - position);
+            this.children[position] = child;
+            this.keys[position] = key;
+            this.sizes[position] = child.size();
+            this.size += child.size();
+            this.count++;
+            return true;
+        }
+
+        /**
+         * removes an emptied child, without changing the size of the branch
+         */
+        void removeChild(int position) {
+            System.arraycopy(this.children, position + 1, this.children, position, this.count - position - 1);
+            System.arraycopy(this.keys, position + 1, this.keys, position, this.count - position - 1);
+            System.arraycopy(this.sizes, position + 1, this.sizes, position, this.count - position - 1);
+            this.count--;
+            this.children[this.count] = null;
+            this.keys[this.count] = null;
+        }
+
+        /**
+         * moves n children of the branch from the position to this branch at the target position
+         */
+        void moveFrom(Branch branch, int position, int n, int target) {
+            System.arraycopy(this.children, target, this.children, target + n, this.count - target);
+            System.arraycopy(this.keys, target, this.keys, target + n, this.count - target);
+            System.arraycopy(this.sizes, target, this.sizes, target + n, this.count - target);
+            System.arraycopy(branch.children, position, this.children, target, n);
+            System.arraycopy(branch.keys, position, this.keys, target, n);
+            System.arraycopy(branch.sizes, position, this.sizes, target, n);
+            int movedSize = 0;
+            for (int i = target; i < target + n; i++) movedSize += this.sizes[i];
+            this.size += movedSize;
+            this.count += n;
+
+            System.arraycopy(branch.children, position + n, branch.children, position, branch.count - position - n);
+            System.arraycopy(branch.keys, position + n, branch.keys, position, branch.count - position - n);
+            System.arraycopy(branch.sizes, position + n, branch.sizes, position, branch.count - position - n);
+            branch.size -= movedSize;
+            branch.count -= n;
+            Arrays.fill(branch.children, branch.count, branch.count + n, null);
+            Arrays.fill(branch.keys, branch.count, branch.count + n, null);
+        }
+
+        @Override
+        void append(Node right, Object separator) {
+            int target = this.count;
+            this.moveFrom((Branch) right, 0, right.count, target);
+            this.keys[target] = separator;
+        }
+
+        /**
+         * the key of the first child of a branch is unused, so the separator becomes the key of the child
+         * that is shifted next to it, and the key of the first child that is shifted becomes the new separator
+         */
+        @Override
+        Object shiftToLeft(Node left, int n, Object separator) {
+            int target = left.count;
+            ((Branch) left).moveFrom(this, 0, n, target);
+            ((Branch) left).keys[target] = separator;
+            Object newSeparator = this.keys[0];
+            this.keys[0] = null;
+            return newSeparator;
+        }
+
+        @Override
+        Object shiftToRight(Node right, int n, Object separator) {
+            Object newSeparator = this.keys[this.count - n];
+            ((Branch) right).keys[0] = separator;
+            ((Branch) right).moveFrom(this, this.count - n, n, 0);
+            ((Branch) right).keys[0] = null;
+            return newSeparator;
+        }
+    }
+
+    /**
+     * the leaf of the latest positional access, with the index of its first item
+     */
+    private static final class Finger {
+        final Leaf leaf;
+        final int start;
+        final int modCount;
+
+        Finger(Leaf leaf, int start, int modCount) {
+            this.leaf = leaf;
+            this.start = start;
+            this.modCount = modCount;
+        }
+    }
+}
@@ -21,4 +21,28 @@ public interface OrderedList<E> extends List<E> {
 
         return sum;
     }
+
+    /**
+     * selects the n best ranked items without sorting or copying the list, in O(m log n) time for m items
+     * items that rank equal keep their order in the list
+     *
+     * @param n      the maximum number of items to be returned
+     * @param ranker the comparator that ranks the best item first
+     * @return a new list with the n best ranked items (or all items if there are fewer), best ranked first
+     */
+    default List<E> top(int n, Comparator<? super E> ranker) {
+        return TopRanking.top(this, n, ranker);
+    }
+
+    /**
+     * selects the n best ranked items like top(), ranking partitions of the list in parallel
+     * (the list shall not be changed while the ranking runs)
+     *
+     * @param n      the maximum number of items to be returned
+     * @param ranker the comparator that ranks the best item first
+     * @return a new list with the n best ranked items (or all items if there are fewer), best ranked first
+     */
+    default List<E> parallelTop(int n, Comparator<? super E> ranker) {
+        return TopRanking.parallelTop(this, n, ranker);
+    }
 }
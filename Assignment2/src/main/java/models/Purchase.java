@@ -16,15 +16,18 @@ public class Purchase{
      * @param textLine line containing the barcode and amount of the product
      * @param products  a list of products ordered and searchable by barcode
      *                  (i.e. the comparator of the ordered list shall consider only the barcode when comparing products)
+     *                  an OrderedList is searched by binary search, any other list by linear search
      * @return  a new Purchase instance with the provided information
-     *          or null if the textLine is corrupt or incomplete
+     *          (with a new Product without title if the barcode is not found in products)
      */
     public static Purchase fromLine(String textLine, List<Product> products) {
         String[] purchaseInfo = textLine.split(", ");
-        long barcode = Long.parseLong(purchaseInfo[0]);
-        Product product = products.stream().filter(
-                product1 -> product1.getBarcode() == barcode)
-                .findFirst().orElse(new Product(barcode));
+        Product searchProduct = new Product(Long.parseLong(purchaseInfo[0]));
+
+        int index = products instanceof OrderedList
+                ? ((OrderedList<Product>) products).indexOfByBinarySearch(searchProduct)
+                : products.indexOf(searchProduct);
+        Product product = index >= 0 ? products.get(index) : searchProduct;
 
         return new Purchase(product, Integer.parseInt(purchaseInfo[1]));
     }
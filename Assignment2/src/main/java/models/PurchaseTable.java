@@ -0,0 +1,191 @@
+package models;
+
+import java.util.List;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable column store of purchases, with one primitive array per attribute,
+ * so that aggregations run as tight loops over arrays that the JIT compiler can unroll and vectorize,
+ * instead of calling a function on every Purchase and Product object.
+ * Aggregations run sequentially, or in parallel over chunks of rows on a table obtained by parallel().
+ */
+public class PurchaseTable {
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final long[] barcodes;
+    private final int[] counts;
+    private final double[] prices;
+    private final int size;
+    private final boolean parallel;     // whether aggregations reduce chunks of rows in parallel
+    // representation-invariant
+    //      row i holds the barcode, count and price of a purchase at index i of barcodes, counts and prices
+
+    private PurchaseTable(long[] barcodes, int[] counts, double[] prices, int size, boolean parallel) {
+        this.barcodes = barcodes;
+        this.counts = counts;
+        this.prices = prices;
+        this.size = size;
+        this.parallel = parallel;
+    }
+
+    /**
+     * copies purchases into a new table, in the order of the list
+     *
+     * @param purchases the purchases, e.g. an OrderedList of a PurchaseTracker
+     * @return a table with a row for every purchase
+     */
+    public static PurchaseTable of(List<Purchase> purchases) {
+        int size = purchases.size();
+        long[] barcodes = new long[size];
+        int[] counts = new int[size];
+        double[] prices = new double[size];
+
+        int row = 0;
+        for (Purchase purchase : purchases) {
+            barcodes[row] = purchase.getBarcode();
+            counts[row] = purchase.getCount();
+            prices[row] = purchase.getProduct().getPrice();
+            row++;
+        }
+
+        return new PurchaseTable(barcodes, counts, prices, size, false);
+    }
+
+    /**
+     * @return a table with the same rows, of which all aggregations reduce chunks of rows in parallel
+     */
+    public PurchaseTable parallel() {
+        return parallel ? this : new PurchaseTable(barcodes, counts, prices, size, true);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getBarcode(int row) {
+        return barcodes[row];
+    }
+
+    public int getCount(int row) {
+        return counts[row];
+    }
+
+    public double getPrice(int row) {
+        return prices[row];
+    }
+
+    /**
+     * @return the sum of the counts of all rows
+     */
+    public long totalCount() {
+        if (parallel) return chunks().mapToLong(chunk -> totalCount(start(chunk), end(chunk))).sum();
+        return totalCount(0, size);
+    }
+
+    /**
+     * @return the sum of count * price of all rows
+     */
+    public double totalValue() {
+        if (parallel) return chunks().mapToDouble(chunk -> totalValue(start(chunk), end(chunk))).sum();
+        return totalValue(0, size);
+    }
+
+    /**
+     * @return the smallest count of any row (or Integer.MAX_VALUE if the table is empty)
+     */
+    public int minCount() {
+        if (parallel) return chunks().map(chunk -> minCount(start(chunk), end(chunk))).min().orElse(Integer.MAX_VALUE);
+        return minCount(0, size);
+    }
+
+    /**
+     * @return the largest count of any row (or Integer.MIN_VALUE if the table is empty)
+     */
+    public int maxCount() {
+        if (parallel) return chunks().map(chunk -> maxCount(start(chunk), end(chunk))).max().orElse(Integer.MIN_VALUE);
+        return maxCount(0, size);
+    }
+
+    /**
+     * @return the average count of all rows (or NaN if the table is empty)
+     */
+    public double averageCount() {
+        return (double) totalCount() / size;
+    }
+
+    /**
+     * @return the average price of all purchased items, i.e. the total value divided by the total count
+     */
+    public double averagePrice() {
+        return totalValue() / totalCount();
+    }
+
+    /**
+     * sums the counts of all rows by group
+     *
+     * @param groupOfBarcode the group of a barcode, e.g. barcode -> barcode / 100000 for the manufacturer
+     * @return the total count of every group
+     */
+    public LongCountMap countsByGroup(LongUnaryOperator groupOfBarcode) {
+        if (parallel) {
+            return chunks().mapToObj(chunk -> countsByGroup(groupOfBarcode, start(chunk), end(chunk)))
+                    .reduce((counts1, counts2) -> {
+                        counts1.addAll(counts2);
+                        return counts1;
+                    }).orElseGet(LongCountMap::new);
+        }
+        return countsByGroup(groupOfBarcode, 0, size);
+    }
+
+    private long totalCount(int from, int to) {
+        long total = 0;
+        for (int row = from; row < to; row++) total += counts[row];
+        return total;
+    }
+
+    private double totalValue(int from, int to) {
+        // four independent sums, so that successive additions need not wait for each other
+        double total0 = 0, total1 = 0, total2 = 0, total3 = 0;
+        int row = from;
+        for (; row + 3 < to; row += 4) {
+            total0 += counts[row] * prices[row];
+            total1 += counts[row + 1] * prices[row + 1];
+            total2 += counts[row + 2] * prices[row + 2];
+            total3 += counts[row + 3] * prices[row + 3];
+        }
+        for (; row < to; row++) total0 += counts[row] * prices[row];
+
+        return (total0 + total1) + (total2 + total3);
+    }
+
+    private int minCount(int from, int to) {
+        int min = Integer.MAX_VALUE;
+        for (int row = from; row < to; row++) min = Math.min(min, counts[row]);
+        return min;
+    }
+
+    private int maxCount(int from, int to) {
+        int max = Integer.MIN_VALUE;
+        for (int row = from; row < to; row++) max = Math.max(max, counts[row]);
+        return max;
+    }
+
+    private LongCountMap countsByGroup(LongUnaryOperator groupOfBarcode, int from, int to) {
+        LongCountMap totals = new LongCountMap();
+        for (int row = from; row < to; row++) totals.add(groupOfBarcode.applyAsLong(barcodes[row]), counts[row]);
+        return totals;
+    }
+
+    private IntStream chunks() {
+        return IntStream.range(0, (size + CHUNK_SIZE - 1) / CHUNK_SIZE).parallel();
+    }
+
+    private static int start(int chunk) {
+        return chunk * CHUNK_SIZE;
+    }
+
+    private int end(int chunk) {
+        return Math.min(size, (chunk + 1) * CHUNK_SIZE);
+    }
+}
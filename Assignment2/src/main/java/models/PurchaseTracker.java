@@ -1,19 +1,48 @@
 package models;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public class PurchaseTracker {
-    private final String PURCHASE_FILE_PATTERN = ".*\\.txt";
+    private static final String PURCHASE_FILE_PATTERN = ".*\\.txt";
 
     private OrderedList<Product> products;        // the reference list of all Products available from the SuperMarket chain
     private OrderedList<Purchase> purchases;      // the aggregated volumes of all purchases of all products across all branches
+    private LongCountMap unknownBarcodes;         // the barcodes that findProduct did not find, with the number of searches
+    private Map<String, FileContribution> importedFiles = new HashMap<>();   // the merged purchase files by path
+    private LongCountMap purchaseTotals = new LongCountMap();  // the sum of the contributions of all importedFiles
+    private PurchaseTable purchaseTable;          // a column store copy of the purchases, or null until it is needed again
+    // representation-invariant
+    //      products is sorted by barcode after every import, and unknownBarcodes holds no barcode of any of its products
+    //      purchases holds a purchase for every known product with a non-zero count in purchaseTotals, with that count
 
     public PurchaseTracker() {
-        products = new OrderedArrayList<>(Comparator.comparing(Product::getBarcode));
-        purchases = new OrderedArrayList<>(Comparator.comparing(Purchase::getBarcode));
+        this(new OrderedArrayList<>(Comparator.comparing(Product::getBarcode)),
+                new OrderedArrayList<>(Comparator.comparing(Purchase::getBarcode)));
+    }
+
+    /**
+     * creates a tracker that keeps its products and purchases in the given lists,
+     * e.g. OrderedBPlusTreeLists for a catalogue of millions of products
+     *
+     * @param products  an empty list that is ordered by barcode
+     * @param purchases an empty list that is ordered by barcode
+     */
+    public PurchaseTracker(OrderedList<Product> products, OrderedList<Purchase> purchases) {
+        this.products = products;
+        this.purchases = purchases;
+        unknownBarcodes = new LongCountMap();
     }
 
     /**
@@ -21,16 +50,20 @@ public class PurchaseTracker {
      *
      * @param resourceName the file/directory path you want to import
      */
-    public void importProductsFromVault(String resourceName) {
+    public synchronized void importProductsFromVault(String resourceName) {
         this.products.clear();
 
         // load all products from the text file
-        importItemsFromFile(this.products,
-                PurchaseTracker.class.getResource(resourceName).getPath(),
-                Product::fromLine);
+        String filePath = PurchaseTracker.class.getResource(resourceName).getPath();
+        try {
+            VaultFileParser.parseProducts(Paths.get(filePath), this.products);
+        } catch (IOException e) {
+            throw new UncheckedIOException("IO exception on path: " + filePath, e);
+        }
 
         // sort the products for efficient later retrieval
         this.products.sort();
+        this.unknownBarcodes = new LongCountMap();
 
         System.out.printf("Imported %d products from %s.\n", products.size(), resourceName);
     }
@@ -40,35 +73,153 @@ public class PurchaseTracker {
      *
      * @param resourceName the file/directory path you want to import
      */
-    public void importPurchasesFromVault(String resourceName) {
+    public synchronized void importPurchasesFromVault(String resourceName) {
         this.purchases.clear();
+        this.importedFiles = new HashMap<>();
+        this.purchaseTotals = new LongCountMap();
 
-        mergePurchasesFromFileRecursively(
-                Objects.requireNonNull(PurchaseTracker.class.getResource(resourceName)).getPath());
+        // import all files in parallel, and add a purchase for every known product in a single pass
+        mergeChangedFiles(vaultDirectory(resourceName));
+        this.purchases.addAll(toPurchases(purchaseTotals));
+        this.purchases.sort();
+        this.purchaseTable = null;
 
         System.out.printf("Accumulated purchases of %d products from files in %s.\n", this.purchases.size(), resourceName);
     }
 
     /**
-     * traverses the purchases vault recursively and processes every data file that it finds
+     * merges the changes of the vault since the previous import or update into the purchases:
+     * only the files that are new, or that have a different size or modification time, are imported again,
+     * and the purchases of files that have been removed are subtracted
      *
-     * @param filePath the file/directory path you want to import
+     * @param resourceName the file/directory path of the vault
+     */
+    public synchronized void updatePurchasesFromVault(String resourceName) {
+        LongCountMap changedTotals = mergeChangedFiles(vaultDirectory(resourceName));
+
+        // update the purchases of the products with changed totals
+        changedTotals.forEach((barcode, delta) -> {
+            Product product = findProduct(barcode);
+            if (delta == 0 || product == null || product.getTitle() == null) return;
+
+            int count = Math.toIntExact(purchaseTotals.get(barcode));
+            int index = purchases.indexOfByBinarySearch(new Purchase(product, 0));
+            if (index < 0) {
+                purchases.add(new Purchase(product, count));
+            } else if (count == 0) {
+                purchases.remove(index);
+            } else {
+                // a new purchase, so that the lists that getTops returned before keep their counts
+                purchases.set(index, new Purchase(product, count));
+            }
+        });
+        this.purchases.sort();
+        this.purchaseTable = null;
+
+        System.out.printf("Updated purchases of %d products from files in %s.\n", changedTotals.size(), resourceName);
+    }
+
+    /**
+     * watches the vault, and updates the purchases whenever files have been added, changed or removed
+     * (in sub folders at any depth, including new ones)
+     * changes that arrive close together are merged by a single update
+     *
+     * @param resourceName the file/directory path of the vault
+     * @param failures     receives every failure of the watcher thread, after which it keeps watching
+     *                     (e.g. a file that is still being written, whose next change will be merged again)
+     * @return a handle that stops watching the vault when it is closed
+     * @throws IOException if the vault cannot be watched
      */
-    private void mergePurchasesFromFileRecursively(String filePath) {
-        File file = new File(filePath);
+    public Closeable watchPurchasesVault(String resourceName, Consumer<Exception> failures) throws IOException {
+        Path vault = vaultDirectory(resourceName).toPath();
+        WatchService watcher = vault.getFileSystem().newWatchService();
+        registerDirectories(vault, watcher);
+
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watcher.take();
+                    do {
+                        for (WatchEvent<?> event : key.pollEvents()) {
+                            Path child = ((Path) key.watchable()).resolve((Path) event.context());
+                            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+                                try {
+                                    registerDirectories(child, watcher);
+                                } catch (IOException e) {
+                                    // e.g. a folder that has been removed again; the rest of the vault is still watched
+                                    failures.accept(e);
+                                }
+                            }
+                        }
+                        key.reset();
+                    } while ((key = watcher.poll()) != null);
 
-        if (file.isDirectory()) {
-            // the file is a folder (a.k.a. directory)
-            //  retrieve a list of all files and sub folders in this directory
-            File[] filesInDirectory = Objects.requireNonNullElse(file.listFiles(), new File[0]);
+                    try {
+                        updatePurchasesFromVault(resourceName);
+                    } catch (RuntimeException e) {
+                        failures.accept(e);
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // stop watching
+            }
+        }, "vault-watcher " + resourceName);
+        thread.setDaemon(true);
+        thread.start();
 
-            for (File child : filesInDirectory) mergePurchasesFromFileRecursively(child.getAbsolutePath());
+        return watcher;
+    }
 
-        } else if (file.getName().matches(PURCHASE_FILE_PATTERN)) {
-            // the file is a regular file that matches the target pattern for raw purchase files
-            // merge the content of this file into this.purchases
-            this.mergePurchasesFromFile(file.getAbsolutePath());
+    private static void registerDirectories(Path directory, WatchService watcher) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static File vaultDirectory(String resourceName) {
+        return new File(Objects.requireNonNull(PurchaseTracker.class.getResource(resourceName)).getPath());
+    }
+
+    /**
+     * imports all purchase files in the vault that are new or changed since they were merged, in parallel,
+     * and replaces their former contributions to this.purchaseTotals by the new ones
+     * (files that are no longer in the vault contribute nothing anymore)
+     *
+     * @param vault the directory of the vault
+     * @return the changes of this.purchaseTotals
+     */
+    private LongCountMap mergeChangedFiles(File vault) {
+        VaultChanges changes = ForkJoinPool.commonPool().invoke(new PurchaseImportTask(vault, importedFiles));
+
+        for (Map.Entry<String, FileContribution> file : importedFiles.entrySet()) {
+            if (!changes.files.containsKey(file.getKey())) changes.subtract(file.getValue());
         }
+
+        purchaseTotals.addAll(changes.totals);
+        importedFiles = changes.files;
+        return changes.totals;
+    }
+
+    /**
+     * finds the product with the given barcode by binary search in the sorted products
+     * barcodes that are not found are remembered, so that later searches for them take constant time
+     *
+     * @param barcode the barcode of the product
+     * @return the product with the barcode, or null if there is no such product
+     */
+    public synchronized Product findProduct(long barcode) {
+        if (!unknownBarcodes.containsKey(barcode)) {
+            int index = products.indexOfByBinarySearch(new Product(barcode));
+            if (index >= 0) return products.get(index);
+        }
+
+        unknownBarcodes.add(barcode, 1);
+        return null;
     }
 
     /**
@@ -80,27 +231,42 @@ public class PurchaseTracker {
      */
     public void showTops(int n, String subTitle, Comparator<Purchase> ranker) {
         System.out.printf("%d purchases with %s:\n", n, subTitle);
-        // helper list to rank the purchases without disturbing the ordening of the original list
-        OrderedList<Purchase> tops = new OrderedArrayList<>(ranker);
-
-        // add all purchases to the new tops list, and sort the list
-        tops.addAll(this.purchases);
-        tops.sort();
+        List<Purchase> tops = getTops(n, ranker);
 
         // show the top items
-        for (int rank = 0; rank < n && rank < tops.size(); rank++) {
+        for (int rank = 0; rank < tops.size(); rank++) {
             System.out.printf("%d: %s\n", rank + 1, tops.get(rank));
         }
     }
 
+    /**
+     * ranks the purchases without disturbing the ordening of the purchases list
+     *
+     * @param n      the number of top purchases to be returned
+     * @param ranker the comparator used to rank the purchases
+     * @return the top n purchases (or all purchases if there are fewer), best ranked first
+     */
+    public synchronized List<Purchase> getTops(int n, Comparator<Purchase> ranker) {
+        return this.purchases.parallelTop(n, ranker);
+    }
+
     /**
      * shows total volume and total revenue sales statistics
      */
-    public void showTotals() {
-        System.out.printf("Total volume of all purchases: %.0f\n",
-                purchases.aggregate(Purchase::getCount));
-        System.out.printf("Total revenue from all purchases: %.2f\n",
-                purchases.aggregate(Purchase::getTotalValue));
+    public synchronized void showTotals() {
+        PurchaseTable table = getPurchaseTable();
+        System.out.printf("Total volume of all purchases: %d\n", table.totalCount());
+        System.out.printf("Total revenue from all purchases: %.2f\n", table.totalValue());
+    }
+
+    /**
+     * the copy is made once after every import or update of the purchases, and shared until the next one
+     *
+     * @return a column store copy of the current purchases, in the order of the purchases list
+     */
+    public synchronized PurchaseTable getPurchaseTable() {
+        if (purchaseTable == null) purchaseTable = PurchaseTable.of(purchases);
+        return purchaseTable;
     }
 
     /**
@@ -122,28 +288,146 @@ public class PurchaseTracker {
     }
 
     /**
-     * imports another batch of raw purchase data from the filePath text file
-     * and merges the purchase amounts with the earlier imported and accumulated collection in this.purchases
+     * imports the raw purchase data from the filePath text file with lines of format: barcode, amount
+     * and accumulates the purchase amounts by barcode, without creating a Purchase or String for every line
      *
-     * @param filePath the file/directory path you want to import
+     * @param filePath the file path of the source text file
+     * @return the accumulated purchase amounts of the file by barcode
      */
-    private void mergePurchasesFromFile(String filePath) {
-        // create a temporary ordered list for the additional purchases, ordered by same comparator as the main list
-        OrderedList<Purchase> newPurchases = new OrderedArrayList<>(this.purchases.getOrdening());
+    private static LongCountMap importPurchasesFromFile(String filePath) {
+        LongCountMap totals = new LongCountMap();
 
-        // re-sort the accumulated purchases for efficient searching
-        this.purchases.sort();
+        try {
+            VaultFileParser.parsePurchases(Paths.get(filePath), totals);
+        } catch (IOException e) {
+            throw new UncheckedIOException("IO exception on path: " + filePath, e);
+        }
+
+        return totals;
+    }
 
-        importItemsFromFile(newPurchases, filePath,
-                s -> Purchase.fromLine(s, products)
-        );
+    /**
+     * creates the purchases of all products that are known in this.products from accumulated purchase amounts
+     * (amounts of unknown barcodes, and zero amounts, are ignored)
+     *
+     * @param totals the accumulated purchase amounts by barcode
+     * @return a new purchase for every known product in totals
+     */
+    private List<Purchase> toPurchases(LongCountMap totals) {
+        List<Purchase> newPurchases = new ArrayList<>(totals.size());
 
-        for (Purchase purchase : newPurchases) {
-            if (purchase.getProduct().getTitle() != null) {
-                this.purchases.merge(purchase,
-                        (item1, item2) -> new Purchase(item1.getProduct(), item1.getCount() + item2.getCount())
-                );
+        totals.forEach((barcode, count) -> {
+            Product product = findProduct(barcode);
+            if (count != 0 && product != null && product.getTitle() != null) {
+                newPurchases.add(new Purchase(product, Math.toIntExact(count)));
             }
+        });
+
+        return newPurchases;
+    }
+
+    /**
+     * the purchase amounts of a single file of the vault, as they were imported.
+     * They are kept for as long as the file is in the vault, because its contribution to the totals
+     * can only be subtracted when it changes or is removed if its former amounts are still known;
+     * this takes memory for the distinct barcodes of every file, not for every purchase line.
+     */
+    private static class FileContribution {
+        private final long size;
+        private final long lastModified;
+        private final LongCountMap counts;      // the accumulated purchase amounts of the file by barcode
+
+        private FileContribution(long size, long lastModified, LongCountMap counts) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.counts = counts;
+        }
+    }
+
+    /**
+     * the changes of the purchase totals by (part of) the vault, and the contributions of its files by their path
+     */
+    private static class VaultChanges {
+        private LongCountMap totals = new LongCountMap();
+        private Map<String, FileContribution> files = new HashMap<>();
+
+        private void add(FileContribution contribution) {
+            totals.addAll(contribution.counts);
+        }
+
+        private void subtract(FileContribution contribution) {
+            contribution.counts.forEach((barcode, count) -> totals.add(barcode, -count));
+        }
+
+        /**
+         * merges the other changes into these, by merging the smaller maps into the larger ones
+         */
+        private void merge(VaultChanges other) {
+            if (other.totals.size() > totals.size()) {
+                LongCountMap swap = totals;
+                totals = other.totals;
+                other.totals = swap;
+            }
+            totals.addAll(other.totals);
+
+            if (other.files.size() > files.size()) {
+                Map<String, FileContribution> swap = files;
+                files = other.files;
+                other.files = swap;
+            }
+            files.putAll(other.files);
+        }
+    }
+
+    /**
+     * traverses (part of) the purchases vault as a fork-join task that imports every sub folder and every data file
+     * as a separate subtask, and then reduces the changes of the totals by all data files.
+     * Files with the same size and modification time as when they were imported before are not imported again,
+     * and do not change the totals; a changed file replaces its former amounts by its new ones.
+     */
+    @SuppressWarnings("serial")  // tasks are only forked within this JVM, never serialized
+    private static class PurchaseImportTask extends RecursiveTask<VaultChanges> {
+        private final File file;
+        private final Map<String, FileContribution> importedFiles;  // the contributions of the former import
+
+        private PurchaseImportTask(File file, Map<String, FileContribution> importedFiles) {
+            this.file = file;
+            this.importedFiles = importedFiles;
+        }
+
+        @Override
+        protected VaultChanges compute() {
+            VaultChanges changes = new VaultChanges();
+
+            if (file.isDirectory()) {
+                // the file is a folder (a.k.a. directory)
+                //  import all files and sub folders in this directory in parallel
+                List<PurchaseImportTask> subTasks = new ArrayList<>();
+                for (File child : Objects.requireNonNullElse(file.listFiles(), new File[0])) {
+                    subTasks.add(new PurchaseImportTask(child, importedFiles));
+                }
+                invokeAll(subTasks);
+
+                for (PurchaseImportTask subTask : subTasks) {
+                    changes.merge(subTask.join());
+                }
+
+            } else if (file.getName().matches(PURCHASE_FILE_PATTERN)) {
+                // the file is a regular file that matches the target pattern for raw purchase files
+                String path = file.getAbsolutePath();
+                long size = file.length();
+                long lastModified = file.lastModified();
+
+                FileContribution contribution = importedFiles.get(path);
+                if (contribution == null || contribution.size != size || contribution.lastModified != lastModified) {
+                    if (contribution != null) changes.subtract(contribution);
+                    contribution = new FileContribution(size, lastModified, importPurchasesFromFile(path));
+                    changes.add(contribution);
+                }
+                changes.files.put(path, contribution);
+            }
+
+            return changes;
         }
     }
 
@@ -155,9 +439,11 @@ public class PurchaseTracker {
      */
     private static Scanner createFileScanner(String filePath) {
         try {
-            return new Scanner(new File(filePath));
+            return new Scanner(new File(filePath), StandardCharsets.UTF_8);
         } catch (FileNotFoundException e) {
             throw new RuntimeException("FileNotFound exception on path: " + filePath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("IO exception on path: " + filePath, e);
         }
     }
 
@@ -165,6 +451,10 @@ public class PurchaseTracker {
         return products;
     }
 
+    /**
+     * @return the live list of purchases, which imports and updates change;
+     * the lists of getTops are copies, whose purchases do not change anymore
+     */
     public List<Purchase> getPurchases() {
         return purchases;
     }
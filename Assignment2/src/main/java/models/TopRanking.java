@@ -0,0 +1,143 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Selects the n best ranked items of a list with a bounded heap, in O(m log n) time for a list of m items,
+ * without copying or sorting the list itself.
+ * Items that rank equal keep their order in the list, so the result is the same as the first n items
+ * after a (stable) sort of the whole list by the ranker.
+ */
+class TopRanking<E> {
+    private static final int MIN_PARTITION_SIZE = 1 << 14;
+
+    private final List<E> items;
+    private final Comparator<? super E> ranker;
+    private final int[] heap;       // the indices of the best ranked items seen so far, with the worst ranked on top
+    private int size;
+    // representation-invariant
+    //      no index in the heap ranks after its parent, by the ranker and then by position in the list
+
+    private TopRanking(List<E> items, Comparator<? super E> ranker, int n) {
+        this.items = items;
+        this.ranker = ranker;
+        this.heap = new int[n];
+    }
+
+    /**
+     * @param items  a list with fast random access
+     * @param n      the maximum number of items to be returned
+     * @param ranker the comparator that ranks the best item first
+     * @param <E>    the type of the items
+     * @return a new list with the n best ranked items (or all items if there are fewer), best ranked first
+     */
+    static <E> List<E> top(List<E> items, int n, Comparator<? super E> ranker) {
+        TopRanking<E> ranking = new TopRanking<>(items, ranker, Math.max(0, Math.min(n, items.size())));
+        for (int index = 0; index < items.size(); index++) ranking.offer(index);
+        return ranking.toList();
+    }
+
+    /**
+     * Selects the top n items of partitions of the list in parallel, and then the top n items of all those
+     *
+     * @param items  a list with fast random access, which is not changed while the ranking runs
+     * @param n      the maximum number of items to be returned
+     * @param ranker the comparator that ranks the best item first
+     * @param <E>    the type of the items
+     * @return a new list with the n best ranked items (or all items if there are fewer), best ranked first
+     */
+    static <E> List<E> parallelTop(List<E> items, int n, Comparator<? super E> ranker) {
+        int top = Math.max(0, Math.min(n, items.size()));
+        int partitions = (int) Math.max(1, Math.min(4 * Runtime.getRuntime().availableProcessors(),
+                items.size() / Math.max(MIN_PARTITION_SIZE, (long) 4 * top)));
+        if (partitions == 1) return top(items, top, ranker);
+
+        List<int[]> candidates = IntStream.range(0, partitions).parallel()
+                .mapToObj(partition -> {
+                    TopRanking<E> ranking = new TopRanking<>(items, ranker, top);
+                    int end = (int) ((long) items.size() * (partition + 1) / partitions);
+                    for (int index = (int) ((long) items.size() * partition / partitions); index < end; index++) {
+                        ranking.offer(index);
+                    }
+                    return ranking.indices();
+                })
+                .collect(Collectors.toList());
+
+        TopRanking<E> ranking = new TopRanking<>(items, ranker, top);
+        for (int[] indices : candidates) {
+            for (int index : indices) ranking.offer(index);
+        }
+        return ranking.toList();
+    }
+
+    /**
+     * Adds the item at the index to the heap if it ranks better than the worst item in a full heap
+     */
+    private void offer(int index) {
+        if (size < heap.length) {
+            heap[size] = index;
+            siftUp(size++);
+        } else if (size > 0 && compare(index, heap[0]) < 0) {
+            heap[0] = index;
+            siftDown(0);
+        }
+    }
+
+    private int[] indices() {
+        int[] indices = new int[size];
+        System.arraycopy(heap, 0, indices, 0, size);
+        return indices;
+    }
+
+    /**
+     * Empties the heap, from the worst ranked item to the best
+     *
+     * @return the items of the heap, best ranked first
+     */
+    private List<E> toList() {
+        List<E> top = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) top.add(null);
+
+        while (size > 0) {
+            top.set(size - 1, items.get(heap[0]));
+            heap[0] = heap[--size];
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int position) {
+        int index = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (compare(heap[parent], index) >= 0) break;
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = index;
+    }
+
+    private void siftDown(int position) {
+        int index = heap[position];
+        while (2 * position + 1 < size) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && compare(heap[child + 1], heap[child]) > 0) child++;
+            if (compare(index, heap[child]) >= 0) break;
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = index;
+    }
+
+    /**
+     * compares the items at two indices by the ranker, and equally ranked items by their position in the list
+     */
+    private int compare(int index1, int index2) {
+        int result = ranker.compare(items.get(index1), items.get(index2));
+        return result != 0 ? result : Integer.compare(index1, index2);
+    }
+}
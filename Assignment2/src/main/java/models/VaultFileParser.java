@@ -0,0 +1,278 @@
+package models;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Parses product and purchase files of the vault directly from the bytes of the memory-mapped file.
+ * Numeric fields are decoded digit by digit, so that only product titles become Strings.
+ * Files are UTF-8 encoded text with one item per line; lines may end with \n or \r\n, and blank lines are skipped.
+ * The mapped bytes are copied in chunks of complete lines into a reused array, which is much faster
+ * to scan byte by byte than the mapped buffer itself.
+ */
+public class VaultFileParser {
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long EXACT_MANTISSA_LIMIT = 1L << 53;   // all smaller longs are exact doubles
+
+    private final ByteBuffer source;
+    private int sourcePosition;     // the first byte of the source that has not been copied into bytes yet
+    private byte[] bytes;           // the current chunk of complete lines
+    private int offset;             // the position of the chunk in the source
+    private int position;           // the next byte of the chunk to be parsed
+    private int limit;              // the end of the chunk
+    // representation-invariant
+    //      bytes[0 .. limit) equals source[offset .. offset + limit), which ends at a line end or at the end of source
+    //      sourcePosition == offset + limit
+
+    private VaultFileParser(ByteBuffer source) {
+        this.source = source;
+        this.sourcePosition = source.position();
+        this.offset = sourcePosition;
+        this.bytes = new byte[Math.min(CHUNK_SIZE, source.remaining())];
+    }
+
+    /**
+     * parses purchase amounts from a file with lines of format: barcode, amount
+     * and adds every amount to the count of its barcode
+     *
+     * @param file   the file to be parsed
+     * @param totals the accumulated purchase amounts by barcode
+     * @throws IOException if the file cannot be read
+     */
+    public static void parsePurchases(Path file, LongCountMap totals) throws IOException {
+        parsePurchases(map(file), totals);
+    }
+
+    /**
+     * parses products from a file with lines of format: barcode, title, price
+     *
+     * @param file     the file to be parsed
+     * @param products the list to which the products shall be added, in the order of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static void parseProducts(Path file, List<Product> products) throws IOException {
+        parseProducts(map(file), products);
+    }
+
+    static void parsePurchases(ByteBuffer source, LongCountMap totals) {
+        VaultFileParser parser = new VaultFileParser(source);
+
+        while (parser.nextLine()) {
+            long barcode = parser.parseLong();
+            parser.expectSeparator();
+            long amount = parser.parseLong();
+            parser.skipLine();
+
+            totals.add(barcode, amount);
+        }
+    }
+
+    static void parseProducts(ByteBuffer source, List<Product> products) {
+        VaultFileParser parser = new VaultFileParser(source);
+
+        while (parser.nextLine()) {
+            long barcode = parser.parseLong();
+            parser.expectSeparator();
+            String title = parser.parseText();
+            parser.expectSeparator();
+            double price = parser.parseDouble();
+            parser.skipLine();
+
+            products.add(new Product(barcode, title, price));
+        }
+    }
+
+    /**
+     * maps a file into memory for reading
+     *
+     * @param file the file to be mapped
+     * @return a read-only buffer with the bytes of the file
+     * @throws IOException if the file cannot be read, or is larger than 2GB
+     */
+    static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File " + file + " is too large to be parsed");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * skips any line ends and blank lines, and copies the next chunk of the source where needed
+     *
+     * @return whether another line with content follows
+     */
+    private boolean nextLine() {
+        do {
+            int p = position;
+            while (p < limit) {
+                byte b = bytes[p];
+                if (b != '\n' && b != '\r' && b != ' ' && b != '\t') break;
+                p++;
+            }
+            position = p;
+
+            if (p < limit) return true;
+        } while (nextChunk());
+
+        return false;
+    }
+
+    /**
+     * copies the next chunk of complete lines from the source
+     *
+     * @return whether the source had any bytes left
+     */
+    private boolean nextChunk() {
+        int remaining = source.limit() - sourcePosition;
+        if (remaining == 0) return false;
+
+        int length = Math.min(remaining, CHUNK_SIZE);
+        if (length < remaining) {
+            // end the chunk after its final line end, or extend it to the end of a line that is longer than a chunk
+            int last = sourcePosition + length - 1;
+            while (last >= sourcePosition && source.get(last) != '\n') last--;
+            if (last < sourcePosition) {
+                last = sourcePosition + length;
+                while (last < source.limit() - 1 && source.get(last) != '\n') last++;
+            }
+            length = last + 1 - sourcePosition;
+        }
+
+        if (bytes.length < length) bytes = new byte[length];
+        ByteBuffer chunk = source.duplicate();
+        chunk.position(sourcePosition);
+        chunk.get(bytes, 0, length);
+
+        offset = sourcePosition;
+        sourcePosition += length;
+        position = 0;
+        limit = length;
+        return true;
+    }
+
+    /**
+     * skips the rest of the current line, which may hold further fields that are ignored
+     */
+    private void skipLine() {
+        int p = position;
+        while (p < limit && bytes[p] != '\n') p++;
+        position = p;
+    }
+
+    /**
+     * parses a decimal integer, which ends at a separator or the end of the line
+     */
+    private long parseLong() {
+        int start = position;
+        int p = start;
+        boolean negative = p < limit && bytes[p] == '-';
+        if (negative) p++;
+
+        long value = 0;
+        int firstDigit = p;
+        while (p < limit) {
+            int digit = bytes[p] - '0';
+            if (digit < 0 || digit > 9) break;
+            value = 10 * value + digit;
+            p++;
+        }
+
+        position = p;
+        if (p == firstDigit || !atEndOfField()) throw corrupt(start, "number expected");
+        if (p - firstDigit > 18) {
+            // numbers of 19 digits or more may overflow, so leave them to the library
+            try {
+                return Long.parseLong(new String(bytes, start, p - start, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw corrupt(start, "number is too large");
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * parses a decimal fraction like 4.25, which ends at a separator or the end of the line
+     */
+    private double parseDouble() {
+        int start = position;
+        int p = start;
+        boolean negative = p < limit && bytes[p] == '-';
+        if (negative) p++;
+
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;      // the number of digits after the decimal point, or -1 before the point
+        while (p < limit && mantissa < EXACT_MANTISSA_LIMIT) {
+            byte b = bytes[p];
+            if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (b >= '0' && b <= '9') {
+                mantissa = 10 * mantissa + (b - '0');
+                digits++;
+                if (decimals >= 0) decimals++;
+            } else {
+                break;
+            }
+            p++;
+        }
+
+        position = p;
+        if (digits > 0 && mantissa < EXACT_MANTISSA_LIMIT && decimals < POWERS_OF_TEN.length && atEndOfField()) {
+            // both the mantissa and the power of ten are exact doubles, so a single division rounds correctly
+            double value = decimals <= 0 ? mantissa : mantissa / POWERS_OF_TEN[decimals];
+            return negative ? -value : value;
+        }
+
+        // leave exponents, long fractions and corrupt numbers to the library
+        position = start;
+        String text = parseText();
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw corrupt(start, "decimal number expected");
+        }
+    }
+
+    /**
+     * parses UTF-8 text up to the next separator or the end of the line
+     */
+    private String parseText() {
+        int start = position;
+        while (!atEndOfField()) position++;
+
+        return new String(bytes, start, position - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return whether the current position is at a ", " separator, a line end or the end of the chunk
+     */
+    private boolean atEndOfField() {
+        if (position >= limit) return true;
+
+        byte b = bytes[position];
+        return b == '\n' || b == '\r' && (position + 1 == limit || bytes[position + 1] == '\n')
+                || b == ',' && position + 1 < limit && bytes[position + 1] == ' ';
+    }
+
+    private void expectSeparator() {
+        if (position + 1 >= limit || bytes[position] != ',' || bytes[position + 1] != ' ') {
+            throw corrupt(position, "separator ', ' expected");
+        }
+        position += 2;
+    }
+
+    private NumberFormatException corrupt(int at, String problem) {
+        return new NumberFormatException("Corrupt line at byte " + (offset + at) + ": " + problem);
+    }
+}
@@ -0,0 +1,60 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongCountMapTest {
+
+    LongCountMap counts;
+
+    @BeforeEach
+    private void setup() {
+        counts = new LongCountMap();
+    }
+
+    @Test
+    public void anEmptyMapCountsNothing() {
+        assertTrue(counts.isEmpty());
+        assertEquals(0, counts.get(8712100516382L));
+        assertFalse(counts.containsKey(0));
+    }
+
+    @Test
+    public void addAccumulatesCountsByKey() {
+        assertEquals(10, counts.add(8712100516382L, 10));
+        assertEquals(16, counts.add(8712100516382L, 6));
+        assertEquals(0, counts.add(0, 0));
+
+        assertEquals(2, counts.size());
+        assertEquals(16, counts.get(8712100516382L));
+        assertTrue(counts.containsKey(0));
+        assertFalse(counts.containsKey(8712100516381L));
+    }
+
+    @Test
+    public void manyKeysAgreeWithAHashMap() {
+        Map<Long, Long> expected = new HashMap<>();
+        LongCountMap other = new LongCountMap(10);
+        Random random = new Random(17);
+
+        for (int i = 0; i < 200000; i++) {
+            long barcode = 8712100000000L + random.nextInt(50000);
+            int amount = random.nextInt(100);
+            expected.merge(barcode, (long) amount, Long::sum);
+            if (i % 2 == 0) counts.add(barcode, amount);
+            else other.add(barcode, amount);
+        }
+        counts.addAll(other);
+
+        assertEquals(expected.size(), counts.size());
+        Map<Long, Long> actual = new HashMap<>();
+        counts.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,158 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderedBPlusTreeListTest {
+
+    OrderedBPlusTreeList<Product> products;
+
+    @BeforeEach
+    private void setup() {
+        products = new OrderedBPlusTreeList<>(Comparator.comparing(Product::getBarcode));
+        PurchaseTracker.importItemsFromFile(products,
+                OrderedBPlusTreeListTest.class.getResource("/products12.txt").getPath(),
+                Product::fromLine);
+    }
+
+    @Test
+    public void importItemsLoadsAllProductsSorted() {
+        assertEquals(12, products.size());
+        assertEquals(111111111111110L, products.get(0).getBarcode());
+        assertEquals(111111111111111L, products.get(1).getBarcode());
+        assertEquals(222222222222220L, products.get(2).getBarcode());
+        for (int index = 0; index < products.size(); index++) {
+            assertEquals(index, products.indexOf(products.get(index)));
+        }
+        assertEquals(-1, products.indexOf(new Product(0)));
+        assertThrows(UnsupportedOperationException.class, () -> products.add(0, new Product(1)));
+        assertThrows(IllegalArgumentException.class, () -> products.set(0, new Product(1)));
+    }
+
+    @Test
+    public void doubleThePricesByMerge() {
+        for (int index = 0; index < products.size(); index++) {
+            products.merge(products.get(index), (p1,p2) -> { p1.setPrice(p1.getPrice() + p2.getPrice()); return p1;} );
+        }
+        assertTrue(products.merge(new Product(333333333333334L, "geraspte wortelen", 1.00), (p1,p2) -> p1));
+
+        assertEquals(13, products.size());
+        assertEquals(69.28, products.aggregate(Product::getPrice), 0.000001);
+    }
+
+    @Test
+    public void manyChangesAgreeWithASortedList() {
+        OrderedBPlusTreeList<Product> tree = new OrderedBPlusTreeList<>(Comparator.comparing(Product::getBarcode));
+        List<Product> expected = new ArrayList<>();
+        Random random = new Random(25);
+
+        for (int i = 0; i < 200000; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 6 || expected.isEmpty()) {
+                Product product = new Product(random.nextInt(20000));
+                tree.add(product);
+                int index = 0;
+                while (index < expected.size() && expected.get(index).getBarcode() <= product.getBarcode()) index++;
+                expected.add(index, product);
+            } else if (operation < 9) {
+                int index = random.nextInt(expected.size());
+                assertSame(expected.remove(index), tree.remove(index));
+            } else {
+                Product product = expected.get(random.nextInt(expected.size()));
+                int index = tree.indexOfByBinarySearch(product);
+                assertEquals(product.getBarcode(), tree.get(index).getBarcode());
+                assertTrue(index == 0 || tree.get(index - 1).getBarcode() < product.getBarcode());
+            }
+            if (i % 20000 == 0) assertIterableEquals(expected, tree);
+        }
+
+        assertEquals(expected.size(), tree.size());
+        assertIterableEquals(expected, tree);
+        for (int index = 0; index < expected.size(); index += 7) assertSame(expected.get(index), tree.get(index));
+
+        for (Iterator<Product> products = tree.iterator(); products.hasNext(); ) {
+            if (products.next().getBarcode() % 2 == 0) products.remove();
+        }
+        expected.removeIf(product -> product.getBarcode() % 2 == 0);
+        assertIterableEquals(expected, tree);
+
+        Iterator<Product> products = tree.iterator();
+        assertThrows(IllegalStateException.class, products::remove);
+        products.next();
+        products.next();
+        products.remove();
+        assertThrows(IllegalStateException.class, products::remove);
+        expected.remove(1);
+        assertIterableEquals(expected, tree);
+        while (!tree.isEmpty()) assertSame(expected.remove(expected.size() / 2), tree.remove(tree.size() / 2));
+    }
+
+    @Test
+    public void addAllBulkLoadsAndMergesStable() {
+        List<Product> sorted = LongStream.range(0, 100000)
+                .mapToObj(barcode -> new Product(barcode * 2))
+                .collect(Collectors.toList());
+        OrderedBPlusTreeList<Product> tree = new OrderedBPlusTreeList<>(Comparator.comparing(Product::getBarcode), sorted);
+        assertIterableEquals(sorted, tree);
+
+        List<Product> added = LongStream.range(0, 100000)
+                .mapToObj(barcode -> new Product(99999 - barcode))
+                .collect(Collectors.toList());
+        tree.addAll(added);
+
+        assertEquals(200000, tree.size());
+        for (int index = 1; index < tree.size(); index++) {
+            assertTrue(tree.get(index - 1).getBarcode() <= tree.get(index).getBarcode());
+        }
+        // 500 sorted and 1000 added products have a barcode less than 1000
+        assertSame(sorted.get(500), tree.get(1500));
+        assertSame(added.get(99999 - 1000), tree.get(1501));
+        assertSame(added.get(99999 - 1001), tree.get(1502));
+    }
+
+    @Test
+    public void rangeScansTheItemsInOrder() {
+        OrderedBPlusTreeList<Product> tree = new OrderedBPlusTreeList<>(Comparator.comparing(Product::getBarcode));
+        for (long barcode = 99999; barcode >= 0; barcode--) tree.add(new Product(barcode * 10));
+
+        List<Product> range = tree.range(new Product(1005), new Product(50000));
+        assertEquals(4899, range.size());
+        assertEquals(1010, range.get(0).getBarcode());
+        assertEquals(49990, range.get(range.size() - 1).getBarcode());
+        assertTrue(tree.range(new Product(50000), new Product(1005)).isEmpty());
+        assertEquals(100000, tree.range(new Product(-1), new Product(Long.MAX_VALUE)).size());
+    }
+
+    @Test
+    public void purchaseTrackerRunsOnTrees() {
+        PurchaseTracker purchaseTracker = new PurchaseTracker(
+                new OrderedBPlusTreeList<>(Comparator.comparing(Product::getBarcode)),
+                new OrderedBPlusTreeList<>(Comparator.comparing(Purchase::getBarcode)));
+        PurchaseTracker expected = new PurchaseTracker();
+        for (PurchaseTracker tracker : List.of(purchaseTracker, expected)) {
+            tracker.importProductsFromVault("/products.txt");
+            tracker.importPurchasesFromVault("/purchases");
+        }
+
+        assertEquals(expected.getProducts(), purchaseTracker.getProducts());
+        assertEquals(toString(expected.getPurchases()), toString(purchaseTracker.getPurchases()));
+        Comparator<Purchase> mostSold = Comparator.comparing(Purchase::getCount).reversed();
+        assertEquals(toString(expected.getTops(5, mostSold)), toString(purchaseTracker.getTops(5, mostSold)));
+    }
+
+    private static List<String> toString(List<Purchase> purchases) {
+        return purchases.stream()
+                .map(purchase -> purchase.getBarcode() + "/" + purchase.getCount())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,76 @@
+package models;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of OrderedBPlusTreeList against OrderedArrayList, on catalogues from 1,000 to 10,000,000 products.
+ * The array list is kept fully sorted by its sorted-insertion mode, so both lists answer every search by bisection.
+ * Searches should take O(log n) time in both; inserting and removing a product in the middle takes O(n) time
+ * in the array list, but O(log n) time in the tree.
+ * Run these benchmarks by: mvn -P benchmark test -DskipTests -Dbenchmark.include=OrderedListBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OrderedListBenchmark {
+    private static final long BARCODE_STEP = 7919;  // a prime step that visits all products in a scattered order
+
+    @Param({"array", "tree"})
+    String implementation;
+
+    @Param({"1000", "100000", "10000000"})
+    int size;
+
+    OrderedList<Product> products;
+    long nextBarcode;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Comparator<Product> byBarcode = Comparator.comparing(Product::getBarcode);
+        if (implementation.equals("array")) {
+            OrderedArrayList<Product> array = new OrderedArrayList<>(byBarcode);
+            array.setSortedInsertion(true);
+            products = array;
+        } else {
+            products = new OrderedBPlusTreeList<>(byBarcode);
+        }
+
+        // all products have an even barcode, so that an odd barcode is new
+        for (long barcode = 0; barcode < size; barcode++) products.add(new Product(2 * barcode));
+        products.sort();
+    }
+
+    @Benchmark
+    public int indexOfByBinarySearch() {
+        nextBarcode = (nextBarcode + BARCODE_STEP) % size;
+        return products.indexOfByBinarySearch(new Product(2 * nextBarcode));
+    }
+
+    /**
+     * adds a new product amidst the catalogue and removes it again
+     */
+    @Benchmark
+    public Product addAndRemove() {
+        nextBarcode = (nextBarcode + BARCODE_STEP) % size;
+        Product newProduct = new Product(2 * nextBarcode + 1);
+        products.add(newProduct);
+        return products.remove(products.indexOfByBinarySearch(newProduct));
+    }
+
+    @Benchmark
+    public double aggregate() {
+        return products.aggregate(Product::getPrice);
+    }
+
+    @Benchmark
+    public void getByIndex(Blackhole blackhole) {
+        for (int index = 0; index < Math.min(size, 1000); index++) blackhole.consume(products.get(index));
+    }
+}
@@ -3,10 +3,15 @@ package models;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ProductsListTest {
 
@@ -99,4 +104,95 @@ public class ProductsListTest {
             assertEquals(index, products.indexOf(products.get(index)));
         }
     }
+
+    @Test
+    public void sortInsertsAShortUnsortedTail() {
+        products.sort();
+        products.add(product3b);
+        products.add(product2a);
+        products.add(product3a);
+        products.sort();
+
+        assertEquals(15, products.size());
+        for (int index = 1; index < products.size(); index++) {
+            assertTrue(products.get(index - 1).getBarcode() <= products.get(index).getBarcode());
+        }
+        List<Product> copy = new ArrayList<>(products);
+        assertSame(product2a, copy.get(copy.indexOf(product2) + 1));
+        assertSame(product3b, copy.get(copy.indexOf(product3a) + 1));
+    }
+
+    @Test
+    public void sortMergesALongUnsortedTailStable() {
+        Comparator<Product> cheapest = Comparator.comparing(Product::getPrice);
+        OrderedList<Product> manyProducts = new OrderedArrayList<>(cheapest);
+        Random random = new Random(23);
+        for (long barcode = 0; barcode < 1000; barcode++) {
+            manyProducts.add(new Product(barcode, "", random.nextInt(100) / 10.0));
+        }
+        manyProducts.sort();
+        for (long barcode = 1000; barcode < 1500; barcode++) {
+            manyProducts.add(new Product(barcode, "", random.nextInt(100) / 10.0));
+        }
+        List<Product> sorted = new ArrayList<>(manyProducts);
+        sorted.sort(cheapest);
+
+        manyProducts.sort();
+        assertEquals(sorted, manyProducts);
+    }
+
+    @Test
+    public void sortedInsertionKeepsAllItemsOrdered() {
+        OrderedArrayList<Product> orderedProducts = (OrderedArrayList<Product>) products;
+        orderedProducts.setSortedInsertion(true);
+        products.add(product3b);
+        products.add(product2a);
+        assertTrue(products.merge(product3a, (p1, p2) -> p1));
+        assertFalse(products.merge(new Product(product3a.getBarcode(), "", 1.50),
+                (p1, p2) -> { p1.setPrice(p1.getPrice() + p2.getPrice()); return p1; }));
+        products.addAll(List.of(new Product(999999999999999L), new Product(1L)));
+
+        assertEquals(17, products.size());
+        for (int index = 1; index < products.size(); index++) {
+            assertTrue(products.get(index - 1).getBarcode() <= products.get(index).getBarcode());
+        }
+        for (int index = 0; index < products.size(); index++) {
+            assertEquals(products.get(index).getBarcode(), products.get(products.indexOf(products.get(index))).getBarcode());
+        }
+        assertEquals(2.50, product3a.getPrice(), 0.000001);
+        List<Product> copy = new ArrayList<>(products);
+        assertSame(product2a, copy.get(copy.indexOf(product2) + 1));
+    }
+
+    @Test
+    public void topRanksLikeAStableSort() {
+        Comparator<Product> cheapest = Comparator.comparing(Product::getPrice);
+        List<Product> sorted = new ArrayList<>(products);
+        sorted.sort(cheapest);
+
+        for (int n = 0; n <= 14; n++) {
+            assertEquals(sorted.subList(0, Math.min(n, sorted.size())), products.top(n, cheapest));
+            assertEquals(sorted.subList(0, Math.min(n, sorted.size())), products.parallelTop(n, cheapest));
+        }
+        assertEquals(List.of(products.get(6), products.get(7)), products.top(2, cheapest.reversed()));
+    }
+
+    @Test
+    public void parallelTopRanksManyItems() {
+        OrderedList<Product> manyProducts = new OrderedArrayList<>(Comparator.comparing(Product::getBarcode));
+        Random random = new Random(20);
+        for (long barcode = 0; barcode < 500000; barcode++) {
+            manyProducts.add(new Product(barcode, "", random.nextInt(1000) / 100.0));
+        }
+        Comparator<Product> mostExpensive = Comparator.comparing(Product::getPrice).reversed();
+        List<Product> sorted = new ArrayList<>(manyProducts);
+        sorted.sort(mostExpensive);
+
+        for (int n : new int[]{1, 10, 1000, 100000}) {
+            assertEquals(sorted.subList(0, n), manyProducts.top(n, mostExpensive));
+            assertEquals(sorted.subList(0, n), manyProducts.parallelTop(n, mostExpensive));
+        }
+        assertEquals(sorted, manyProducts.parallelTop(Integer.MAX_VALUE, mostExpensive));
+        assertEquals(List.of(), manyProducts.parallelTop(-1, mostExpensive));
+    }
 }
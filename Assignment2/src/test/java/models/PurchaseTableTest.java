@@ -0,0 +1,103 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PurchaseTableTest {
+
+    PurchaseTracker purchaseTracker;
+    PurchaseTable table;
+
+    @BeforeEach
+    private void setup() {
+        purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromVault("/products.txt");
+        purchaseTracker.importPurchasesFromVault("/purchases");
+
+        table = purchaseTracker.getPurchaseTable();
+    }
+
+    @Test
+    public void tableHoldsTheColumnsOfAllPurchases() {
+        List<Purchase> purchases = purchaseTracker.getPurchases();
+        assertEquals(purchases.size(), table.size());
+        for (int row = 0; row < purchases.size(); row++) {
+            assertEquals(purchases.get(row).getBarcode(), table.getBarcode(row));
+            assertEquals(purchases.get(row).getCount(), table.getCount(row));
+            assertEquals(purchases.get(row).getProduct().getPrice(), table.getPrice(row));
+        }
+    }
+
+    @Test
+    public void aggregationsMatchTheOrderedList() {
+        List<Purchase> purchases = purchaseTracker.getPurchases();
+
+        assertEquals(16730, table.totalCount());
+        assertEquals(purchases.stream().mapToDouble(Purchase::getTotalValue).sum(), table.totalValue(), 0.000001);
+        assertEquals(purchases.stream().mapToInt(Purchase::getCount).min().getAsInt(), table.minCount());
+        assertEquals(purchases.stream().mapToInt(Purchase::getCount).max().getAsInt(), table.maxCount());
+        assertEquals(16730.0 / 61, table.averageCount(), 0.000001);
+        assertEquals(table.totalValue() / 16730, table.averagePrice(), 0.000001);
+    }
+
+    @Test
+    public void tableIsSharedUntilThePurchasesAreImportedAgain() {
+        assertSame(table, purchaseTracker.getPurchaseTable());
+
+        purchaseTracker.importPurchasesFromVault("/purchases");
+        PurchaseTable imported = purchaseTracker.getPurchaseTable();
+        assertNotSame(table, imported);
+        assertEquals(table.totalCount(), imported.totalCount());
+    }
+
+    @Test
+    public void countsByGroupSumsAllRowsOfAGroup() {
+        LongCountMap byManufacturer = table.countsByGroup(barcode -> barcode / 100000);
+
+        Map<Long, Long> expected = new HashMap<>();
+        for (Purchase purchase : purchaseTracker.getPurchases()) {
+            expected.merge(purchase.getBarcode() / 100000, (long) purchase.getCount(), Long::sum);
+        }
+        assertEquals(expected.size(), byManufacturer.size());
+        expected.forEach((manufacturer, count) -> assertEquals(count, byManufacturer.get(manufacturer)));
+    }
+
+    @Test
+    public void parallelAggregationsMatchSequentialOnes() {
+        Random random = new Random(2021);
+        List<Purchase> purchases = new ArrayList<>();
+        for (int i = 0; i < 500000; i++) {
+            Product product = new Product(1000000 + random.nextInt(100000), "product", random.nextInt(10000) / 100.0);
+            purchases.add(new Purchase(product, random.nextInt(1000)));
+        }
+        PurchaseTable sequential = PurchaseTable.of(purchases);
+        PurchaseTable parallel = sequential.parallel();
+
+        assertEquals(sequential.totalCount(), parallel.totalCount());
+        assertEquals(sequential.totalValue(), parallel.totalValue(), 0.000001 * sequential.totalValue());
+        assertEquals(sequential.minCount(), parallel.minCount());
+        assertEquals(sequential.maxCount(), parallel.maxCount());
+
+        LongCountMap sequentialGroups = sequential.countsByGroup(barcode -> barcode % 97);
+        LongCountMap parallelGroups = parallel.countsByGroup(barcode -> barcode % 97);
+        assertEquals(97, parallelGroups.size());
+        sequentialGroups.forEach((group, count) -> assertEquals(count, parallelGroups.get(group)));
+    }
+
+    @Test
+    public void anEmptyTableAggregatesNothing() {
+        PurchaseTable empty = PurchaseTable.of(new ArrayList<>());
+
+        assertEquals(0, empty.totalCount());
+        assertEquals(0.0, empty.parallel().totalValue());
+        assertTrue(empty.parallel().countsByGroup(barcode -> barcode).isEmpty());
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,4 +42,27 @@ public class PurchaseTest {
         Purchase purchase1 = Purchase.fromLine("111111111111111, 10", products);
         assertEquals("111111111111111/Stroopwafels 10st/10/12.30", purchase1.toString());
     }
+
+    @Test
+    public void productsAreFoundByBinarySearchInAnOrderedList() {
+        int[] comparisons = new int[1];
+        OrderedList<Product> catalogue = new OrderedArrayList<>((product1, product2) -> {
+            comparisons[0]++;
+            return Long.compare(product1.getBarcode(), product2.getBarcode());
+        });
+        for (long barcode = 1; barcode <= 200000; barcode++) {
+            catalogue.add(new Product(10 * barcode, "Product " + barcode, 1.00));
+        }
+        catalogue.sort();
+        catalogue.add(snickers);
+
+        comparisons[0] = 0;
+        for (long barcode = 1; barcode <= 200000; barcode++) {
+            assertEquals(10 * barcode, Purchase.fromLine(10 * barcode + ", 1", catalogue).getProduct().getBarcode());
+            assertNull(Purchase.fromLine((10 * barcode + 1) + ", 1", catalogue).getProduct().getTitle());
+        }
+        // a binary search of 200000 sorted products needs at most 18 comparisons, plus a few for the unsorted tail
+        assertTrue(comparisons[0] <= 2 * 200000 * 20, "needed " + comparisons[0] + " comparisons");
+        assertSame(snickers, Purchase.fromLine("333333333333333, 30", catalogue).getProduct());
+    }
 }
\ No newline at end of file
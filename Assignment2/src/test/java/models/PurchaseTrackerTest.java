@@ -1,12 +1,31 @@
 package models;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class PurchaseTrackerTest {
 
+    private static final String COPIED_VAULT = "/copied-purchases";
+
     PurchaseTracker purchaseTracker;
 
     @BeforeEach
@@ -18,10 +37,137 @@ public class PurchaseTrackerTest {
         purchaseTracker.importPurchasesFromVault("/purchases");
     }
 
+    @AfterEach
+    private void deleteCopiedVault() throws IOException {
+        Path copy = classpathRoot().resolve(COPIED_VAULT.substring(1));
+        if (Files.exists(copy)) {
+            try (Stream<Path> files = Files.walk(copy)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
     @Test
     public void importVaultCheck() {
         assertEquals(61, purchaseTracker.getProducts().size());
         assertEquals(61, purchaseTracker.getPurchases().size());
         assertEquals(16730, purchaseTracker.getPurchases().stream().mapToInt(Purchase::getCount).sum());
     }
+
+    @Test
+    public void parallelImportGivesTheTotalsOfAllFiles() throws IOException {
+        // accumulate the counts of all purchase files one after the other
+        Map<Long, Integer> expected = new HashMap<>();
+        Path vault = Paths.get(PurchaseTrackerTest.class.getResource("/purchases").getPath());
+        try (Stream<Path> files = Files.walk(vault)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".txt")).collect(Collectors.toList())) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    String[] fields = line.split(", ");
+                    expected.merge(Long.parseLong(fields[0]), Integer.parseInt(fields[1]), Integer::sum);
+                }
+            }
+        }
+        expected.keySet().retainAll(purchaseTracker.getProducts().stream()
+                .map(Product::getBarcode).collect(Collectors.toSet()));
+
+        for (int repeat = 0; repeat < 3; repeat++) {
+            Map<Long, Integer> imported = purchaseTracker.getPurchases().stream()
+                    .collect(Collectors.toMap(Purchase::getBarcode, Purchase::getCount));
+            assertEquals(expected, imported);
+
+            purchaseTracker.importPurchasesFromVault("/purchases");
+        }
+    }
+
+    @Test
+    public void findProductRemembersUnknownBarcodes() {
+        for (Product product : purchaseTracker.getProducts()) {
+            assertSame(product, purchaseTracker.findProduct(product.getBarcode()));
+        }
+        assertNull(purchaseTracker.findProduct(1L));
+        assertNull(purchaseTracker.findProduct(1L));
+
+        purchaseTracker.importProductsFromVault("/products12.txt");
+        assertEquals("Stroopwafels 10st", purchaseTracker.findProduct(111111111111111L).getTitle());
+        assertNull(purchaseTracker.findProduct(8712100516382L));
+    }
+
+    @Test
+    public void updateMergesOnlyTheChangesOfTheVault() throws IOException {
+        Path vault = copyVault();
+        purchaseTracker.importPurchasesFromVault(COPIED_VAULT);
+        Purchase coke = purchaseTracker.getPurchases().get(
+                purchaseTracker.getPurchases().indexOf(new Purchase(new Product(5000112544631L), 0)));
+
+        // without changes, the purchases stay the same
+        purchaseTracker.updatePurchasesFromVault(COPIED_VAULT);
+        assertEquals(16730, purchaseTracker.getPurchases().stream().mapToInt(Purchase::getCount).sum());
+
+        // a branch adds purchases, a new day starts, and a branch retracts its file
+        Files.writeString(vault.resolve("20211002/Amsterdam/vijzelstraat.txt"),
+                "5000112544631, 100\n", StandardOpenOption.APPEND);
+        Files.createDirectories(vault.resolve("20211003/Utrecht"));
+        Files.writeString(vault.resolve("20211003/Utrecht/oudegracht.txt"), "5000112544631, 11\n1, 99\n");
+        Files.delete(vault.resolve("20211001/webshop.txt"));
+
+        purchaseTracker.updatePurchasesFromVault(COPIED_VAULT);
+        PurchaseTracker fullImport = new PurchaseTracker();
+        fullImport.importProductsFromVault("/products.txt");
+        fullImport.importPurchasesFromVault(COPIED_VAULT);
+
+        assertEquals(toCounts(fullImport.getPurchases()), toCounts(purchaseTracker.getPurchases()));
+        assertEquals(fullImport.getTops(5, Comparator.comparing(Purchase::getCount)).toString(),
+                purchaseTracker.getTops(5, Comparator.comparing(Purchase::getCount)).toString());
+        assertEquals(1189 + 100 + 11 - 24, purchaseTracker.getPurchases().get(
+                purchaseTracker.getPurchases().indexOf(coke)).getCount());
+        // purchases that were returned before the update keep their counts
+        assertEquals(1189, coke.getCount());
+    }
+
+    @Test
+    public void watchedVaultStaysCurrent() throws Exception {
+        Path vault = copyVault();
+        purchaseTracker.importPurchasesFromVault(COPIED_VAULT);
+
+        List<Exception> failures = Collections.synchronizedList(new ArrayList<>());
+        Closeable watch = purchaseTracker.watchPurchasesVault(COPIED_VAULT, failures::add);
+        try (watch) {
+            Files.createDirectories(vault.resolve("20211003/Utrecht"));
+            Files.writeString(vault.resolve("20211003/Utrecht/oudegracht.txt"), "5000112544631, 1000\n");
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while (totalCount() != 17730 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+            assertEquals(17730, totalCount(), "failures: " + failures);
+        }
+    }
+
+    private int totalCount() {
+        return purchaseTracker.getTops(Integer.MAX_VALUE, Comparator.comparing(Purchase::getBarcode))
+                .stream().mapToInt(Purchase::getCount).sum();
+    }
+
+    private static Map<Long, Integer> toCounts(List<Purchase> purchases) {
+        return purchases.stream().collect(Collectors.toMap(Purchase::getBarcode, Purchase::getCount));
+    }
+
+    /**
+     * copies the purchases vault to a directory on the classpath that the test can change
+     */
+    private static Path copyVault() throws IOException {
+        Path vault = Paths.get(PurchaseTrackerTest.class.getResource("/purchases").getPath());
+        Path copy = classpathRoot().resolve(COPIED_VAULT.substring(1));
+
+        try (Stream<Path> files = Files.walk(vault)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.copy(file, copy.resolve(vault.relativize(file).toString()));
+            }
+        }
+        return copy;
+    }
+
+    private static Path classpathRoot() {
+        return Paths.get(PurchaseTrackerTest.class.getResource("/purchases").getPath()).getParent();
+    }
 }
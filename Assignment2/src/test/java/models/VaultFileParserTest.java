@@ -0,0 +1,121 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VaultFileParserTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void productsAreParsedLikeFromLine() throws IOException {
+        Path file = Paths.get(VaultFileParserTest.class.getResource("/products.txt").getPath());
+        List<Product> parsed = new ArrayList<>();
+        VaultFileParser.parseProducts(file, parsed);
+
+        List<Product> expected = new ArrayList<>();
+        PurchaseTracker.importItemsFromFile(expected, file.toString(), Product::fromLine);
+
+        assertEquals(expected.size(), parsed.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), parsed.get(i).toString());
+        }
+        assertEquals("Calvé Pindakaas 650g", parsed.get(0).getTitle());
+    }
+
+    @Test
+    public void linesMayVaryInLayout() {
+        LongCountMap totals = new LongCountMap();
+        VaultFileParser.parsePurchases(bytes("8712100516382, 10\r\n\r\n8712100516381, 6, extra\n  \n8712100516382, 5"), totals);
+
+        assertEquals(2, totals.size());
+        assertEquals(15, totals.get(8712100516382L));
+        assertEquals(6, totals.get(8712100516381L));
+
+        List<Product> products = new ArrayList<>();
+        VaultFileParser.parseProducts(bytes("222222222222222, Bounty bar, 0.85, 1.25\n111111111111111, 1,5 kilo, 1e1\r\n"), products);
+        assertEquals("222222222222222/Bounty bar/0.85", products.get(0).toString());
+        assertEquals("111111111111111/1,5 kilo/10.0", products.get(1).toString());
+
+        // a line that is longer than a chunk of the parser
+        String title = "x".repeat(3_000_000);
+        products.clear();
+        VaultFileParser.parseProducts(bytes("1, a, 1.00\n2, " + title + ", 2.00\n3, c, 3.00"), products);
+        assertEquals(3, products.size());
+        assertEquals(title, products.get(1).getTitle());
+        assertEquals(3.0, products.get(2).getPrice());
+    }
+
+    @Test
+    public void corruptLinesAreRejected() {
+        for (String line : List.of("8712100516382 10", "8712100516382, ", "8712100516382, 1x", "x, 10",
+                "99999999999999999999, 1")) {
+            assertThrows(NumberFormatException.class,
+                    () -> VaultFileParser.parsePurchases(bytes(line), new LongCountMap()), line);
+        }
+        assertThrows(NumberFormatException.class,
+                () -> VaultFileParser.parseProducts(bytes("1, Mars, 0.8.6"), new ArrayList<>()));
+    }
+
+    @Test
+    public void pricesAreRoundedLikeParseDouble() {
+        Random random = new Random(18);
+        StringBuilder lines = new StringBuilder();
+        List<String> prices = new ArrayList<>();
+
+        for (int i = 0; i < 10000; i++) {
+            String price = random.nextInt(100000) + "." + random.nextInt(1000);
+            if (i % 10 == 0) price = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(30) - 10));
+            prices.add(price);
+            lines.append(i).append(", Product ").append(i).append(", ").append(price).append('\n');
+        }
+
+        List<Product> products = new ArrayList<>();
+        VaultFileParser.parseProducts(bytes(lines.toString()), products);
+        for (int i = 0; i < prices.size(); i++) {
+            assertEquals(Double.parseDouble(prices.get(i)), products.get(i).getPrice(), prices.get(i));
+        }
+    }
+
+    @Test
+    public void largePurchaseFilesAreParsedQuickly() throws IOException {
+        Path file = directory.resolve("large.txt");
+        Random random = new Random(18);
+        long expected = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < 4_000_000; i++) {
+                int amount = random.nextInt(100);
+                writer.write((8712100000000L + random.nextInt(1000)) + ", " + amount + "\r\n");
+                expected += amount;
+            }
+        }
+
+        LongCountMap totals = new LongCountMap();
+        long start = System.nanoTime();
+        VaultFileParser.parsePurchases(file, totals);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] sum = {0};
+        totals.forEach((barcode, count) -> sum[0] += count);
+        assertEquals(expected, sum[0]);
+        assertTrue(Files.size(file) / seconds > 50e6, "parsed " + Files.size(file) / seconds / 1e6 + " MB/s");
+    }
+
+    private static ByteBuffer bytes(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}